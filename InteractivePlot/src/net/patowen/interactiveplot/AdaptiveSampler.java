@@ -0,0 +1,356 @@
+package net.patowen.interactiveplot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Samples a function more densely in the pixel columns where sampling once per column would
+ * misrepresent it. A column is subdivided where the samples bend away from a straight line by more
+ * than a fraction of a pixel or the slope changes sign, up to a fixed depth. Jumps that do not
+ * shrink when subdivided, and poles where the function shoots off the plot in opposite directions,
+ * are treated as discontinuities, so asymptotes are not drawn as vertical lines. This holds even
+ * once a column already covers the whole height of the plot. The result records the first, last,
+ * minimum and maximum value of every column.
+ * @author Patrick Owen
+ */
+final class AdaptiveSampler {
+	// The maximum number of times a column can be halved, limiting each column to at most
+	// 2^MAX_DEPTH intervals.
+	private static final int MAX_DEPTH = 6;
+	
+	// How far in pixels the middle of an interval can be from the line through its endpoints
+	// before the interval is subdivided.
+	private static final double TOLERANCE = 0.5;
+	
+	// Slope sign changes smaller than this many pixels are treated as rounding noise.
+	private static final double SIGN_CHANGE_TOLERANCE = TOLERANCE / 16;
+	
+	// An unresolved interval is a discontinuity if one half holds more than this fraction of the
+	// change across the interval.
+	private static final double JUMP_FRACTION = 0.75;
+	
+	// The number of columns refined by a single fork/join task.
+	private static final int PARALLEL_CHUNK_SIZE = 16;
+	
+	private final PlotFunction fun;
+	private final AxisScale xAxisScale;
+	private final AxisScale yAxisScale;
+	
+	private final int pixelXLeft;
+	private final int width;
+	private final double linearXLeft;
+	private final double linearXRight;
+	private final double linearYTop;
+	private final double screenPerLinearY;
+	private final int height;
+	
+	/**
+	 * Creates an {@code AdaptiveSampler} for the given function and view of the plot. Only the
+	 * linear coordinates and the axis scales are kept, so the sampler can be used from any thread.
+	 */
+	AdaptiveSampler(PlotFunction fun, PlotView view) {
+		this.fun = fun;
+		xAxisScale = view.getXAxisScale();
+		yAxisScale = view.getYAxisScale();
+		
+		pixelXLeft = view.getPixelXLeft();
+		width = view.getWidth();
+		linearXLeft = view.getRealXLeft();
+		linearXRight = view.getRealXRight();
+		linearYTop = view.getRealYTop();
+		screenPerLinearY = view.getHeight() / (view.getRealYBottom() - view.getRealYTop());
+		height = view.getHeight();
+	}
+	
+	/**
+	 * Returns the x-coordinate of the left edge of the given column in real coordinates. Column
+	 * {@code width} gives the right edge of the last column.
+	 */
+	double getEdgeX(int column) {
+		return xAxisScale.getReal(linearXLeft + (linearXRight - linearXLeft) * column / width);
+	}
+	
+	/**
+	 * Refines the given samples of the function into columns.
+	 * @param centerYs the value of the function at the center of every column
+	 * @param edgeYs the value of the function at {@link #getEdgeX} for every column and the right
+	 * edge of the last one
+	 * @param pool the pool to refine columns in parallel with, or {@code null}
+	 * @param cancelled checked regularly, stopping sampling if it returns true
+	 * @param reused columns refined by an earlier sampler for the same vertical viewport and
+	 * column width, or {@code null}
+	 * @param shift the index of the column of {@code reused} that is the first column of this
+	 * sampler
+	 * @return the refined columns, or {@code null} if sampling was cancelled
+	 */
+	ColumnSamples sample(double[] centerYs, double[] edgeYs, ForkJoinPool pool, BooleanSupplier cancelled,
+			ColumnSamples reused, int shift) {
+		Result result = new Result();
+		
+		// Columns that were already refined are copied, and only the rest are refined.
+		int reusedStart = 0, reusedEnd = 0;
+		if (reused != null) {
+			reusedStart = Math.max(0, -shift);
+			reusedEnd = Math.max(reusedStart, Math.min(width, reused.getWidth() - shift));
+			reused.copyColumns(reusedStart + shift, result.first, result.last, result.min, result.max,
+					result.breakBefore, reusedStart, reusedEnd - reusedStart);
+			Arrays.fill(result.beforeBreakLast, reusedStart, reusedEnd, Double.NaN);
+		}
+		
+		if (pool == null) {
+			Column column = new Column(result);
+			for (int i = 0; i < width; i++) {
+				if (i == reusedStart) i = reusedEnd;
+				if (i == width) break;
+				if (cancelled.getAsBoolean()) return null;
+				column.sample(i, centerYs, edgeYs);
+			}
+		} else {
+			pool.invoke(new RefinementTask(result, centerYs, edgeYs, cancelled, 0, reusedStart));
+			pool.invoke(new RefinementTask(result, centerYs, edgeYs, cancelled, reusedEnd, width));
+			if (cancelled.getAsBoolean()) return null;
+		}
+		
+		// Anything before a discontinuity in a column is drawn as part of the previous column.
+		for (int i = 1; i < width; i++) {
+			if (!Double.isNaN(result.beforeBreakLast[i]) && !Double.isNaN(result.last[i-1])) {
+				result.last[i-1] = result.beforeBreakLast[i];
+				result.min[i-1] = Math.min(result.min[i-1], result.beforeBreakMin[i]);
+				result.max[i-1] = Math.max(result.max[i-1], result.beforeBreakMax[i]);
+			}
+		}
+		
+		return new ColumnSamples(pixelXLeft, width, linearXLeft, linearXRight,
+				result.first, result.last, result.min, result.max, result.breakBefore);
+	}
+	
+	private double getScreenY(double y) {
+		return (yAxisScale.getLinear(y) - linearYTop) * screenPerLinearY;
+	}
+	
+	/**
+	 * The arrays that columns are refined into.
+	 */
+	private final class Result {
+		private final double[] first = new double[width];
+		private final double[] last = new double[width];
+		private final double[] min = new double[width];
+		private final double[] max = new double[width];
+		private final boolean[] breakBefore = new boolean[width];
+		
+		// The part of a column before its first discontinuity.
+		private final double[] beforeBreakLast = new double[width];
+		private final double[] beforeBreakMin = new double[width];
+		private final double[] beforeBreakMax = new double[width];
+	}
+	
+	/**
+	 * Accumulates the samples of one column at a time, in order of increasing x-coordinate. The
+	 * samples are split into segments at every discontinuity. Only the segments before the first
+	 * discontinuity and after the last one are kept, since anything in between is narrower than a
+	 * pixel.
+	 */
+	private final class Column {
+		private final Result result;
+		
+		private int index;
+		private int segments; // The number of nonempty segments finished so far
+		private boolean leadingBreak; // Whether the column starts with a discontinuity
+		
+		private double first, last, min, max;
+		private double minScreen, maxScreen;
+		
+		private double firstSegmentLast, firstSegmentMin, firstSegmentMax;
+		private double lastSegmentFirst, lastSegmentLast, lastSegmentMin, lastSegmentMax;
+		
+		private Column(Result result) {
+			this.result = result;
+		}
+		
+		private void sample(int i, double[] centerYs, double[] edgeYs) {
+			index = i;
+			segments = 0;
+			leadingBreak = false;
+			startSegment();
+			
+			double linearWidth = (linearXRight - linearXLeft) / width;
+			double a = linearXLeft + linearWidth * i;
+			double ya = edgeYs[i], sa = getScreenY(ya);
+			double yb = edgeYs[i+1], sb = getScreenY(yb);
+			double ym = centerYs[i], sm = getScreenY(ym);
+			
+			add(ya, sa);
+			refine(a, ya, sa, a + linearWidth, yb, sb, ym, sm, 0);
+			breakSegment();
+			finish();
+		}
+		
+		// Adds the samples strictly between a and b, followed by b itself. The middle of the
+		// interval has already been evaluated.
+		private void refine(double a, double ya, double sa, double b, double yb, double sb,
+				double ym, double sm, int depth) {
+			double m = (a + b) / 2;
+			// Once the segment covers the whole plot, more samples can only change what is drawn
+			// if they find a discontinuity, so only intervals that may hold one are refined.
+			if (depth < MAX_DEPTH && needsRefinement(sa, sm, sb)
+					&& (!isResolved() || isJump(sa, sm, sb) || isJump(sb, sm, sa) || isPole(sa, sm, sb))) {
+				double yl = fun.getY(xAxisScale.getReal((a + m) / 2));
+				refine(a, ya, sa, m, ym, sm, yl, getScreenY(yl), depth + 1);
+				double yr = fun.getY(xAxisScale.getReal((m + b) / 2));
+				refine(m, ym, sm, b, yb, sb, yr, getScreenY(yr), depth + 1);
+				return;
+			}
+			
+			// At a pole, the break goes on whichever side of the middle the value changes more.
+			boolean unresolved = depth == MAX_DEPTH;
+			boolean pole = unresolved && isPole(sa, sm, sb);
+			if (unresolved && (isJump(sa, sm, sb) || pole && Math.abs(sm - sa) > Math.abs(sb - sm))) {
+				breakSegment();
+			}
+			add(ym, sm);
+			if (unresolved && (isJump(sb, sm, sa) || pole && Math.abs(sm - sa) <= Math.abs(sb - sm))) {
+				breakSegment();
+			}
+			add(yb, sb);
+		}
+		
+		private boolean needsRefinement(double sa, double sm, double sb) {
+			boolean fa = Double.isFinite(sa), fm = Double.isFinite(sm), fb = Double.isFinite(sb);
+			if (!fa || !fm || !fb) {
+				// Narrow down where the function stops being defined.
+				return fa || fm || fb;
+			}
+			
+			if (Math.abs(sm - (sa + sb) / 2) > TOLERANCE) {
+				return true;
+			}
+			return (sm - sa) * (sb - sm) < 0
+					&& Math.abs(sm - sa) + Math.abs(sb - sm) > SIGN_CHANGE_TOLERANCE;
+		}
+		
+		// Returns whether the half of the interval between from and mid is a discontinuity.
+		private boolean isJump(double from, double mid, double to) {
+			double jump = Math.abs(mid - from);
+			return jump > TOLERANCE && jump > JUMP_FRACTION * (jump + Math.abs(to - mid));
+		}
+		
+		// Returns whether the middle of the interval is beyond both ends in the same direction by
+		// more than the height of the plot. Near a pole, both halves change by so much that
+		// neither holds most of the change, so this is checked separately from jumps.
+		private boolean isPole(double sa, double sm, double sb) {
+			return (sm - sa) * (sm - sb) > 0 && Math.min(Math.abs(sm - sa), Math.abs(sm - sb)) > height;
+		}
+		
+		// Returns whether the current segment already covers the whole plot, so that more samples
+		// could not change what is drawn unless they break the segment.
+		private boolean isResolved() {
+			return minScreen <= 0 && maxScreen >= height;
+		}
+		
+		private void add(double y, double screenY) {
+			if (!Double.isFinite(screenY)) {
+				breakSegment();
+				return;
+			}
+			
+			if (Double.isNaN(first)) {
+				first = y;
+				min = y;
+				max = y;
+			}
+			last = y;
+			min = Math.min(min, y);
+			max = Math.max(max, y);
+			minScreen = Math.min(minScreen, screenY);
+			maxScreen = Math.max(maxScreen, screenY);
+		}
+		
+		private void startSegment() {
+			first = last = min = max = Double.NaN;
+			minScreen = Double.POSITIVE_INFINITY;
+			maxScreen = Double.NEGATIVE_INFINITY;
+		}
+		
+		private void breakSegment() {
+			if (Double.isNaN(first)) {
+				if (segments == 0) {
+					leadingBreak = true;
+				}
+				return;
+			}
+			
+			if (segments == 0) {
+				firstSegmentLast = last;
+				firstSegmentMin = min;
+				firstSegmentMax = max;
+			}
+			lastSegmentFirst = first;
+			lastSegmentLast = last;
+			lastSegmentMin = min;
+			lastSegmentMax = max;
+			segments++;
+			startSegment();
+		}
+		
+		private void finish() {
+			result.beforeBreakLast[index] = Double.NaN;
+			if (segments == 0) {
+				result.first[index] = result.last[index] = result.min[index] = result.max[index] = Double.NaN;
+				result.breakBefore[index] = true;
+				return;
+			}
+			
+			result.first[index] = lastSegmentFirst;
+			result.last[index] = lastSegmentLast;
+			result.min[index] = lastSegmentMin;
+			result.max[index] = lastSegmentMax;
+			result.breakBefore[index] = leadingBreak || segments > 1;
+			if (segments > 1 && !leadingBreak) {
+				result.beforeBreakLast[index] = firstSegmentLast;
+				result.beforeBreakMin[index] = firstSegmentMin;
+				result.beforeBreakMax[index] = firstSegmentMax;
+			}
+		}
+	}
+	
+	/**
+	 * Refines a range of columns by splitting it in half until each piece is small enough to
+	 * refine on a single thread.
+	 */
+	@SuppressWarnings("serial")
+	private final class RefinementTask extends RecursiveAction {
+		private final Result result;
+		private final double[] centerYs;
+		private final double[] edgeYs;
+		private final BooleanSupplier cancelled;
+		private final int start;
+		private final int end;
+		
+		private RefinementTask(Result result, double[] centerYs, double[] edgeYs, BooleanSupplier cancelled,
+				int start, int end) {
+			this.result = result;
+			this.centerYs = centerYs;
+			this.edgeYs = edgeYs;
+			this.cancelled = cancelled;
+			this.start = start;
+			this.end = end;
+		}
+		
+		protected void compute() {
+			if (cancelled.getAsBoolean()) return;
+			
+			if (end - start <= PARALLEL_CHUNK_SIZE) {
+				Column column = new Column(result);
+				for (int i = start; i < end; i++) {
+					column.sample(i, centerYs, edgeYs);
+				}
+			} else {
+				int middle = (start + end) / 2;
+				invokeAll(new RefinementTask(result, centerYs, edgeYs, cancelled, start, middle),
+						new RefinementTask(result, centerYs, edgeYs, cancelled, middle, end));
+			}
+		}
+	}
+}
@@ -8,7 +8,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
 
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -17,52 +16,50 @@ import javax.swing.JLabel;
 public class AxisLabel extends JComponent {
 	public enum Orientation {HORIZONTAL, VERTICAL};
 	
-	private BufferedImage textImage;
+	private String text;
+	private Orientation orientation;
+	private Font font;
 	
 	public AxisLabel(String text, Orientation orientation, Font font) {
 		if (font == null) {
 			font = new JLabel().getFont();
 		}
+		if (orientation != Orientation.HORIZONTAL && orientation != Orientation.VERTICAL) {
+			throw new IllegalArgumentException("Orientation: " + orientation);
+		}
+		this.text = text;
+		this.orientation = orientation;
+		this.font = font;
 		setAlignmentX(0.5f);
 		setAlignmentY(0.5f);
 		
 		FontMetrics fontMetrics = getFontMetrics(font);
 		Rectangle2D bounds = fontMetrics.getStringBounds(text, getGraphics());
-		int x = (int)bounds.getX();
-		int y = (int)bounds.getY();
 		int width = (int)bounds.getWidth();
 		int height = (int)bounds.getHeight();
-
-		BufferedImage tempImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D)tempImage.getGraphics();
-		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
-		g.setFont(font);
-		g.setColor(Color.BLACK);
-		g.drawString(text, -x, -y);
-		
-		switch (orientation) {
-		case HORIZONTAL:
-			textImage = tempImage;
+		if (orientation == Orientation.HORIZONTAL) {
 			setPreferredSize(new Dimension(width, height));
-			break;
-		case VERTICAL:
-			textImage = new BufferedImage(height, width, BufferedImage.TYPE_INT_ARGB);
-			for (int i=0; i<width; i++) {
-				for (int j=0; j<height; j++) {
-					textImage.setRGB(j, width-i-1, tempImage.getRGB(i, j));
-				}
-			}
+		} else {
 			setPreferredSize(new Dimension(height, width));
-			break;
-		default:
-			throw new IllegalArgumentException("Orientation: " + orientation);
 		}
 	}
 	
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		int xPos = (getWidth() - textImage.getWidth()) / 2;
-		int yPos = (getHeight() - textImage.getHeight()) / 2;
-		g.drawImage(textImage, xPos, yPos, null);
+		
+		// The text is centered, reading from bottom to top if vertical. The rendered text is kept
+		// in the shared label cache, rotated and at the resolution of the screen.
+		Graphics2D g2 = (Graphics2D)g.create();
+		g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
+		g2.setFont(font);
+		g2.setColor(Color.BLACK);
+		g2.translate(getWidth() / 2.0, getHeight() / 2.0);
+		if (orientation == Orientation.VERTICAL) {
+			g2.rotate(-Math.PI / 2);
+		}
+		LabelImageCache.LabelImage textImage = LabelImageCache.getShared().get(g2, text);
+		Rectangle2D bounds = textImage.getBounds();
+		textImage.draw(g2, (float)-bounds.getCenterX(), (float)-bounds.getCenterY());
+		g2.dispose();
 	}
 }
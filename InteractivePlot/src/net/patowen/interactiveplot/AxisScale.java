@@ -13,6 +13,22 @@ public abstract class AxisScale {
 	 */
 	public abstract double getReal(double linear);
 	
+	/**
+	 * Converts the coordinates in {@code [start, end)} from linear coordinates to real
+	 * coordinates. The default implementation calls {@link #getReal(double)} for each coordinate,
+	 * and subclasses can override it with a faster loop.
+	 * @param linear the coordinates in linear coordinates
+	 * @param real the array to store the coordinates in real coordinates in, which may be the same
+	 * as {@code linear}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getReal(double[] linear, double[] real, int start, int end) {
+		for (int i = start; i < end; i++) {
+			real[i] = getReal(linear[i]);
+		}
+	}
+	
 	/**
 	 * Converts a single coordinate from real coordinates to linear coordinates.
 	 * @param linear the coordinate in real coordinates
@@ -20,6 +36,22 @@ public abstract class AxisScale {
 	 */
 	public abstract double getLinear(double real);
 	
+	/**
+	 * Converts the coordinates in {@code [start, end)} from real coordinates to linear
+	 * coordinates. The default implementation calls {@link #getLinear(double)} for each
+	 * coordinate, and subclasses can override it with a faster loop.
+	 * @param real the coordinates in real coordinates
+	 * @param linear the array to store the coordinates in linear coordinates in, which may be the
+	 * same as {@code real}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getLinear(double[] real, double[] linear, int start, int end) {
+		for (int i = start; i < end; i++) {
+			linear[i] = getLinear(real[i]);
+		}
+	}
+	
 	/**
 	 * Creates and returns a suitable {@link TickLabelList} for the given bounds and interval.
 	 * @param linearMin the minimum coordinate for a label in linear coordinates
@@ -27,4 +59,17 @@ public abstract class AxisScale {
 	 * @param minLinearInterval the minimum interval between two labels in linear coordinates
 	 */
 	public abstract TickLabelList getLabels(double linearMin, double linearMax, double minLinearInterval);
+	
+	/**
+	 * Returns whether labels created with either of the given minimum intervals are the same, such
+	 * that the labels of any range are exactly the labels of a larger range that fall within it. If
+	 * so, the labels that stay visible when the plot is moved without zooming are reused, and only
+	 * the labels that come into view are created. The default implementation returns
+	 * {@code false}.
+	 * @param minLinearInterval the minimum interval between two labels in linear coordinates
+	 * @param otherMinLinearInterval another minimum interval in linear coordinates
+	 */
+	public boolean hasSameLabels(double minLinearInterval, double otherMinLinearInterval) {
+		return false;
+	}
 }
@@ -91,8 +91,9 @@ public class BasicPlotStyle extends PlotStyle {
 		g.drawLine(i, plotScale.getPixelYBottom(), i, plotScale.getPixelYBottom()+majorAxisLength);
 		
 		if (label != null) {
-			Rectangle2D lb = g.getFontMetrics().getStringBounds(label.getText(), g);
-			g.drawString(label.getText(), (float)(i-lb.getCenterX()), (float)(plotScale.getPixelYBottom()+majorAxisLength-lb.getMinY()+1));
+			LabelImageCache.LabelImage text = LabelImageCache.getShared().get(g, label.getText());
+			Rectangle2D lb = text.getBounds();
+			text.draw(g, (float)(i-lb.getCenterX()), (float)(plotScale.getPixelYBottom()+majorAxisLength-lb.getMinY()+1));
 		}
 	}
 	
@@ -103,8 +104,9 @@ public class BasicPlotStyle extends PlotStyle {
 		g.drawLine(plotScale.getPixelXLeft(), j, plotScale.getPixelXLeft()-majorAxisLength, j);
 		
 		if (label != null) {
-			Rectangle2D lb = g.getFontMetrics().getStringBounds(label.getText(), g);
-			g.drawString(label.getText(), (float)(plotScale.getPixelXLeft()-majorAxisLength-lb.getMaxX()-1), (float)(j-lb.getCenterY()));
+			LabelImageCache.LabelImage text = LabelImageCache.getShared().get(g, label.getText());
+			Rectangle2D lb = text.getBounds();
+			text.draw(g, (float)(plotScale.getPixelXLeft()-majorAxisLength-lb.getMaxX()-1), (float)(j-lb.getCenterY()));
 		}
 	}
 }
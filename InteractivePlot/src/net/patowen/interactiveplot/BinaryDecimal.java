@@ -1,5 +1,8 @@
 package net.patowen.interactiveplot;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 class BinaryDecimal
 {
 	// The value is coefficient * 2 ^ binExponent * 10 ^ decExponent. This must be non-negative.
@@ -7,6 +10,27 @@ class BinaryDecimal
 	private int binExponent;
 	private int decExponent;
 	
+	// 5 ^ k is (POW5_HIGH[k] * 2^64 + POW5_LOW[k]) * 2 ^ POW5_EXPONENT[k], with the 128-bit
+	// mantissa normalized so that its top bit is set. The mantissa is exact when the exponent is not
+	// positive, and rounded down otherwise. Every double is within 10 ^ +-(POW5_COUNT - 1) of any
+	// positive long.
+	private static final int POW5_COUNT = 401;
+	private static final long[] POW5_HIGH = new long[POW5_COUNT];
+	private static final long[] POW5_LOW = new long[POW5_COUNT];
+	private static final int[] POW5_EXPONENT = new int[POW5_COUNT];
+	
+	static {
+		BigInteger power = BigInteger.ONE;
+		for (int k = 0; k < POW5_COUNT; k++) {
+			int exponent = power.bitLength() - 128;
+			BigInteger mantissa = exponent > 0 ? power.shiftRight(exponent) : power.shiftLeft(-exponent);
+			POW5_HIGH[k] = mantissa.shiftRight(64).longValue();
+			POW5_LOW[k] = mantissa.longValue();
+			POW5_EXPONENT[k] = exponent;
+			power = power.multiply(BigInteger.valueOf(5));
+		}
+	}
+	
 	public BinaryDecimal(long coefficient, int binExponent, int decExponent) {
 		this.coefficient = coefficient;
 		this.binExponent = binExponent;
@@ -108,22 +132,161 @@ class BinaryDecimal
 	 * @return
 	 */
 	public int compare(double comparison) {
+		return compare(coefficient, binExponent, decExponent, comparison);
+	}
+	
+	/**
+	 * Compares coefficient * 2 ^ binExponent * 10 ^ decExponent to comparison in the same way as
+	 * {@link #compare(double)}, without creating any objects. When binExponent is 0, the comparison
+	 * is exact and takes constant time.
+	 * Contract: coefficient >= 0, comparison >= 0
+	 */
+	public static int compare(long coefficient, int binExponent, int decExponent, double comparison) {
 		if (comparison == 0 && coefficient == 0) return 0;
 		if (comparison == 0) return 1;
 		if (coefficient == 0) return -1;
 		
-		BinaryDecimal clone = new BinaryDecimal(this);
+		if (binExponent == 0) {
+			return compareExact(coefficient, decExponent, comparison);
+		}
+		return compareApproximate(coefficient, binExponent, decExponent, comparison);
+	}
+	
+	/**
+	 * Returns -1 if coefficient * 10 ^ decExponent < comparison, 1 if >, and 0 if =, exactly.
+	 * The power of five is taken from the tables, multiplied by the smaller number with 128-bit
+	 * arithmetic, and compared to the larger number shifted into place.
+	 * Contract: coefficient > 0, comparison > 0
+	 */
+	static int compareExact(long coefficient, int decExponent, double comparison) {
+		if (decExponent >= POW5_COUNT) return 1;
+		if (decExponent <= -POW5_COUNT) return -1;
+		
+		long fraction = (Double.doubleToRawLongBits(comparison) & 0x000f_ffff_ffff_ffffL) | 0x0010_0000_0000_0000L;
+		int exp = Math.getExponent(comparison);
+		if (exp < Double.MIN_EXPONENT) {
+			exp += 1;
+			fraction &= 0x000f_ffff_ffff_ffffL;
+		} else if (exp > Double.MAX_EXPONENT) {
+			throw new IllegalArgumentException("Argument must be a real number"); // NaN is bad.
+		}
+		exp -= 52;
+		
+		// Since 10 ^ d = 5 ^ d * 2 ^ d, comparing coefficient * 10 ^ d to fraction * 2 ^ exp is the
+		// same as comparing coefficient * 5 ^ d to fraction * 2 ^ (exp - d) if d >= 0, or the
+		// opposite of comparing fraction * 5 ^ -d to coefficient * 2 ^ (d - exp) otherwise.
+		int result;
+		if (decExponent >= 0) {
+			result = comparePowerOfFive(coefficient, decExponent, fraction, exp - decExponent);
+		} else {
+			result = comparePowerOfFive(fraction, -decExponent, coefficient, decExponent - exp);
+			if (result != 2) {
+				result = -result;
+			}
+		}
+		return result == 2 ? compareBig(coefficient, decExponent, comparison) : result;
+	}
+	
+	/**
+	 * Returns -1 if u * 5 ^ k < w * 2 ^ t, 1 if >, and 0 if =, or 2 if the precision of the tables
+	 * is not enough to tell.
+	 * Contract: u > 0, w > 0, 0 <= k < POW5_COUNT
+	 */
+	private static int comparePowerOfFive(long u, int k, long w, int t) {
+		// The 192-bit product p = u * mantissa. The true value of u * 5 ^ k is in
+		// [p, p + u) * 2 ^ POW5_EXPONENT[k], and is exactly p * 2 ^ POW5_EXPONENT[k] if exact.
+		long high = POW5_HIGH[k], low = POW5_LOW[k];
+		boolean exact = POW5_EXPONENT[k] <= 0;
+		long p0 = u * low;
+		long lowHigh = unsignedMultiplyHigh(u, low);
+		long p1 = u * high + lowHigh;
+		long p2 = unsignedMultiplyHigh(u, high) + (Long.compareUnsigned(p1, lowHigh) < 0 ? 1 : 0);
+		
+		// The mantissa has 128 bits, so p has at least 128. If w * 2 ^ t has at least two more
+		// bits, or fewer bits, the comparison is decided by the lengths alone.
+		int shift = t - POW5_EXPONENT[k];
+		int pLength = p2 != 0 ? 192 - Long.numberOfLeadingZeros(p2) : 128;
+		int wLength = 64 - Long.numberOfLeadingZeros(w);
+		if ((long)wLength + shift > pLength + 1) return -1;
+		if ((long)wLength + shift < pLength) return 1;
+		
+		// Otherwise, w << shift fits in 192 bits, with shift >= 65.
+		long r2, r1;
+		if (shift >= 128) {
+			r2 = w << (shift - 128);
+			r1 = 0;
+		} else {
+			r2 = w >>> (128 - shift);
+			r1 = w << (shift - 64);
+		}
+		
+		int result = compare192(p2, p1, p0, r2, r1, 0);
+		if (exact || result >= 0) {
+			// If not exact, the true value is above p and cannot equal w * 2 ^ t, since 5 ^ k for
+			// k > 27 cannot divide w.
+			return exact ? result : 1;
+		}
+		
+		// p < w << shift, but the true value may be up to u more than p.
+		long q0 = p0 + u;
+		long carry = Long.compareUnsigned(q0, p0) < 0 ? 1 : 0;
+		long q1 = p1 + carry;
+		long q2 = p2 + (carry == 1 && q1 == 0 ? 1 : 0);
+		if (compare192(q2, q1, q0, r2, r1, 0) <= 0) {
+			return -1;
+		}
+		return 2;
+	}
+	
+	// Compares two unsigned 192-bit numbers given from the most significant 64 bits down.
+	private static int compare192(long a2, long a1, long a0, long b2, long b1, long b0) {
+		int result = Long.compareUnsigned(a2, b2);
+		if (result == 0) result = Long.compareUnsigned(a1, b1);
+		if (result == 0) result = Long.compareUnsigned(a0, b0);
+		return Integer.signum(result);
+	}
+	
+	// Returns the high 64 bits of the unsigned 128-bit product of a and b.
+	private static long unsignedMultiplyHigh(long a, long b) {
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+	
+	// The exact comparison for the rare cases that the tables cannot decide
+	private static int compareBig(long coefficient, int decExponent, double comparison) {
+		return new BigDecimal(BigInteger.valueOf(coefficient), -decExponent).compareTo(new BigDecimal(comparison));
+	}
+	
+	// Compares by moving the decimal exponent to 0 one step at a time, rounding down. Each step
+	// keeps at least 60 significant bits, so only a comparison within that rounding error below
+	// the true value can come out as less than it.
+	static int compareApproximate(long coefficient, int binExponent, int decExponent, double comparison) {
 		boolean exact = true;
 		
-		while (clone.decExponent > 0) {
-			exact = clone.decrementDecExponent() && exact;
+		// The same steps as decrementDecExponent
+		while (decExponent > 0) {
+			while (coefficient > Long.MAX_VALUE / 5L) {
+				exact = exact && ((coefficient & 1L) == 0);
+				coefficient >>>= 1;
+				binExponent ++;
+			}
+			coefficient *= 5;
+			binExponent ++;
+			decExponent --;
 		}
 		
-		while (clone.decExponent < 0) {
-			exact = clone.incrementDecExponent() && exact;
+		// The same steps as incrementDecExponent
+		while (decExponent < 0) {
+			while ((coefficient & 0x4000_0000_0000_0000L) == 0) {
+				coefficient <<= 1;
+				binExponent --;
+			}
+			exact = exact && ((coefficient % 5) == 0);
+			coefficient /= 5;
+			binExponent --;
+			decExponent ++;
 		}
 		
-		return clone.compareRaw(comparison, exact?0:1);
+		return compareRaw(coefficient, binExponent, comparison, exact?0:1);
 	}
 	
 	/**
@@ -133,6 +296,10 @@ class BinaryDecimal
 	 * @param equalValue
 	 */
 	public int compareRaw(double comparison, int equalValue) {
+		return compareRaw(coefficient, binExponent, comparison, equalValue);
+	}
+	
+	private static int compareRaw(long coefficient, int binExponent, double comparison, int equalValue) {
 		long fraction = (Double.doubleToRawLongBits(comparison) & 0x000f_ffff_ffff_ffffL) | 0x0010_0000_0000_0000L;
 		int exp = Math.getExponent(comparison);
 		if (exp < Double.MIN_EXPONENT) {
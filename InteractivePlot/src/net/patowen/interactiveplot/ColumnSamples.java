@@ -0,0 +1,189 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Holds what is drawn in each pixel column of a plot for a single horizontal viewport. Each column
+ * has a first, last, minimum and maximum y-coordinate in real coordinates. When the data has a
+ * single value per column, all four arrays are the same and the value is drawn at the center of
+ * the column. Otherwise, the first and last values are drawn at the left and right edges of the
+ * column, or at their own x-coordinates if those are known, with a vertical line covering the
+ * minimum and maximum if they stick out.
+ * @author Patrick Owen
+ */
+final class ColumnSamples {
+	// Extrema closer than this many pixels to the line through the first and last value of a
+	// column are not drawn separately.
+	private static final double ENVELOPE_TOLERANCE = 0.5;
+	
+	// Pixel coordinates are clamped to this distance from the plot, since lines to coordinates
+	// far beyond the plot are drawn imprecisely or not at all.
+	private static final double COORDINATE_LIMIT = 1e6;
+	
+	// The horizontal viewport that the columns were sampled for, in linear coordinates.
+	private final int pixelXLeft;
+	private final int width;
+	private final double linearXLeft;
+	private final double linearXRight;
+	
+	private final double[] first;
+	private final double[] last;
+	private final double[] min;
+	private final double[] max;
+	
+	// The x-coordinates of the first and last values in linear coordinates, or null to use the
+	// edges of the columns. A column with a NaN x-coordinate is empty and does not break the line.
+	private final double[] firstX;
+	private final double[] lastX;
+	
+	// If an element is true, the data is not connected between the previous column and this one.
+	// This may be null if the data has no discontinuities.
+	private final boolean[] breakBefore;
+	
+	// Only every column that is a multiple of the stride has a value.
+	private final int stride;
+	
+	/**
+	 * Creates {@code ColumnSamples} with a single value per column.
+	 * @param ys the value of every column in real coordinates
+	 * @param stride the number of columns between those with values
+	 */
+	ColumnSamples(int pixelXLeft, int width, double linearXLeft, double linearXRight, double[] ys, int stride) {
+		this(pixelXLeft, width, linearXLeft, linearXRight, null, ys, null, ys, ys, ys, null, stride);
+	}
+	
+	/**
+	 * Creates {@code ColumnSamples} with a range of values per column.
+	 */
+	ColumnSamples(int pixelXLeft, int width, double linearXLeft, double linearXRight,
+			double[] first, double[] last, double[] min, double[] max, boolean[] breakBefore) {
+		this(pixelXLeft, width, linearXLeft, linearXRight, null, first, null, last, min, max, breakBefore, 1);
+	}
+	
+	/**
+	 * Creates {@code ColumnSamples} with a range of values per column, where the first and last
+	 * values are drawn at the given x-coordinates. Columns with a NaN x-coordinate are empty.
+	 * @param firstX the x-coordinate of the first value of every column in linear coordinates
+	 * @param lastX the x-coordinate of the last value of every column in linear coordinates
+	 */
+	ColumnSamples(int pixelXLeft, int width, double linearXLeft, double linearXRight,
+			double[] firstX, double[] first, double[] lastX, double[] last, double[] min, double[] max) {
+		this(pixelXLeft, width, linearXLeft, linearXRight, firstX, first, lastX, last, min, max, null, 1);
+	}
+	
+	private ColumnSamples(int pixelXLeft, int width, double linearXLeft, double linearXRight,
+			double[] firstX, double[] first, double[] lastX, double[] last, double[] min, double[] max,
+			boolean[] breakBefore, int stride) {
+		this.pixelXLeft = pixelXLeft;
+		this.width = width;
+		this.linearXLeft = linearXLeft;
+		this.linearXRight = linearXRight;
+		this.firstX = firstX;
+		this.first = first;
+		this.lastX = lastX;
+		this.last = last;
+		this.min = min;
+		this.max = max;
+		this.breakBefore = breakBefore;
+		this.stride = stride;
+	}
+	
+	/**
+	 * Returns the number of columns.
+	 */
+	int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Copies a range of columns into the arrays of columns under construction.
+	 * @param from the first column to copy
+	 * @param to the index in the arrays to copy the first column to
+	 * @param length the number of columns to copy
+	 */
+	void copyColumns(int from, double[] first, double[] last, double[] min, double[] max,
+			boolean[] breakBefore, int to, int length) {
+		System.arraycopy(this.first, from, first, to, length);
+		System.arraycopy(this.last, from, last, to, length);
+		System.arraycopy(this.min, from, min, to, length);
+		System.arraycopy(this.max, from, max, to, length);
+		if (this.breakBefore != null) {
+			System.arraycopy(this.breakBefore, from, breakBefore, to, length);
+		} else {
+			Arrays.fill(breakBefore, to, to + length, false);
+		}
+	}
+	
+	/**
+	 * Draws the columns with the current color. Columns sampled for a different viewport are moved
+	 * and stretched to where they belong in the current one. Every line is added to the given path,
+	 * which is drawn with a single call, and runs of columns are only broken where a value is not
+	 * finite or the data is discontinuous.
+	 * @param path the path to build the lines in, which is reset first so that it can be reused
+	 */
+	void draw(Graphics2D g, PlotScale plotScale, Path2D.Double path) {
+		// The center of column i is at pixel coordinate scale*i + offset.
+		double pixelWidth = (linearXRight - linearXLeft) / width;
+		double currentPixelWidth = (plotScale.getRealXRight() - plotScale.getRealXLeft()) / plotScale.getWidth();
+		double scale = pixelWidth / currentPixelWidth;
+		double offset = (linearXLeft + pixelWidth/2 - plotScale.getRealXLeft()) / currentPixelWidth - 0.5
+				+ plotScale.getPixelXLeft();
+		boolean envelope = first != last;
+		
+		// A value at a linear x-coordinate is at pixel coordinate linearScale*x + linearOffset.
+		double linearScale = 1 / currentPixelWidth;
+		double linearOffset = offset - (linearXLeft + pixelWidth/2) * linearScale;
+		
+		path.reset();
+		boolean connected = false;
+		for (int i = 0; i < width; i++) {
+			if (i % stride != 0) continue;
+			if (firstX != null && Double.isNaN(firstX[i])) continue;
+			
+			double x = scale*i + offset;
+			double firstY = plotScale.getScreenY(first[i]);
+			if (!Double.isFinite(firstY)) {
+				connected = false;
+				continue;
+			}
+			
+			double left = firstX != null ? linearScale*firstX[i] + linearOffset : envelope ? x - scale/2 : x;
+			double right = lastX != null ? linearScale*lastX[i] + linearOffset : x + scale/2;
+			if (connected && (breakBefore == null || !breakBefore[i])) {
+				path.lineTo(left, clamp(firstY));
+			} else {
+				path.moveTo(left, clamp(firstY));
+			}
+			connected = true;
+			
+			if (envelope) {
+				double lastY = plotScale.getScreenY(last[i]);
+				boolean lastFinite = Double.isFinite(lastY);
+				if (lastFinite) {
+					path.lineTo(right, clamp(lastY));
+				}
+				
+				double minY = plotScale.getScreenY(min[i]);
+				double maxY = plotScale.getScreenY(max[i]);
+				double low = Math.min(firstY, lastFinite ? lastY : firstY);
+				double high = Math.max(firstY, lastFinite ? lastY : firstY);
+				if (Math.min(minY, maxY) < low - ENVELOPE_TOLERANCE || Math.max(minY, maxY) > high + ENVELOPE_TOLERANCE) {
+					path.moveTo(x, clamp(minY));
+					path.lineTo(x, clamp(maxY));
+					if (lastFinite) {
+						path.moveTo(right, clamp(lastY));
+					}
+				}
+				connected = lastFinite;
+			}
+		}
+		g.draw(path);
+	}
+	
+	// Limits a pixel coordinate to a range that Java2D can draw lines to without losing precision.
+	private static double clamp(double y) {
+		return Math.max(-COORDINATE_LIMIT, Math.min(COORDINATE_LIMIT, y));
+	}
+}
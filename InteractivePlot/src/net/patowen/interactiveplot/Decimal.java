@@ -145,10 +145,20 @@ public class Decimal {
 	 * @param factor The value returned will be divisible by this argument. It must be positive.
 	 */
 	public static Decimal getLowerBound(double val, Decimal factor) {
+		return factor.times(getLowerMultiple(val, factor));
+	}
+	
+	/**
+	 * Returns the number of times factor goes into {@link #getLowerBound(double, Decimal)}, so that
+	 * the multiples of factor from val upward can be stepped through without creating decimals.
+	 * @param val
+	 * @param factor It must be positive.
+	 */
+	public static long getLowerMultiple(double val, Decimal factor) {
 		if (val >= 0.0) {
-			return getLowerBoundRaw(val, factor);
+			return Math.floorDiv(getLowerCoefficient(val, factor), factor.coefficient);
 		} else {
-			return getUpperBoundRaw(-val, factor).negate();
+			return -(Math.floorDiv(getUpperCoefficient(-val, factor), factor.coefficient)+1);
 		}
 	}
 	
@@ -172,11 +182,14 @@ public class Decimal {
 	 * @param factor
 	 */
 	private static Decimal getLowerBoundRaw(double val, Decimal factor) {
-		long valCoeff = (long)Math.floor(Math.nextDown(val*Math.nextDown(Math.pow(BASE, -factor.exponent))));
-		long factor2 = Math.floorDiv(valCoeff, factor.coefficient);
+		long factor2 = Math.floorDiv(getLowerCoefficient(val, factor), factor.coefficient);
 		return factor.times(factor2);
 	}
 	
+	private static long getLowerCoefficient(double val, Decimal factor) {
+		return (long)Math.floor(Math.nextDown(val*Math.nextDown(Math.pow(BASE, -factor.exponent))));
+	}
+	
 	/**
 	 * Returns a decimal close to but higher than val and divisible by factor.
 	 * Contract: val, factor > 0 -> result >= val, factor | result.
@@ -184,11 +197,14 @@ public class Decimal {
 	 * @param factor
 	 */
 	private static Decimal getUpperBoundRaw(double val, Decimal factor) {
-		long valCoeff = (long)Math.ceil(Math.nextUp(val*Math.nextUp(Math.pow(BASE, -factor.exponent))));
-		long factor2 = Math.floorDiv(valCoeff, factor.coefficient)+1;
+		long factor2 = Math.floorDiv(getUpperCoefficient(val, factor), factor.coefficient)+1;
 		return factor.times(factor2);
 	}
 	
+	private static long getUpperCoefficient(double val, Decimal factor) {
+		return (long)Math.ceil(Math.nextUp(val*Math.nextUp(Math.pow(BASE, -factor.exponent))));
+	}
+	
 	/**
 	 * Returns -1 if the decimal < comparison, 1 if >, and 0 if =.
 	 * Contract: This comparison must be monotonic and close to correct.
@@ -197,6 +213,14 @@ public class Decimal {
 	 * @param comparison
 	 */
 	public int compare(double comparison) {
+		return compare(coefficient, exponent, comparison);
+	}
+	
+	/**
+	 * Compares coefficient * 10 ^ exponent to comparison in the same way as
+	 * {@link #compare(double)}, without creating any objects.
+	 */
+	public static int compare(long coefficient, int exponent, double comparison) {
 		int sign = 1;
 		if (coefficient < 0 && comparison < 0) {
 			sign = -1;
@@ -206,16 +230,45 @@ public class Decimal {
 			return 1;
 		}
 		
-		return sign*(new BinaryDecimal(coefficient*sign, 0, exponent)).compare(comparison);
+		return sign*BinaryDecimal.compare(coefficient*sign, 0, exponent, comparison);
 	}
 	
 	/**
 	 * Returns a double that is within 1 ulp of the decimal value (not verified).
 	 */
 	public double getDoubleValue() {
+		return toDouble(coefficient, exponent);
+	}
+	
+	/**
+	 * Returns the same double as {@link #getDoubleValue()} for the decimal
+	 * coefficient * 10 ^ exponent, without creating it.
+	 */
+	public static double toDouble(long coefficient, int exponent) {
+		if (coefficient == 0) {
+			return 0;
+		}
+		while (coefficient % BASE == 0) {
+			coefficient /= BASE;
+			exponent ++;
+		}
 		return (double)coefficient*Math.pow(BASE, exponent);
 	}
 	
+	/**
+	 * Returns the coefficient of the decimal, such that the value is coefficient * 10 ^ exponent.
+	 */
+	public long getCoefficient() {
+		return coefficient;
+	}
+	
+	/**
+	 * Returns the exponent of the decimal, such that the value is coefficient * 10 ^ exponent.
+	 */
+	public int getExponent() {
+		return exponent;
+	}
+	
 	private void reduce() {
 		if (coefficient == 0) {
 			exponent = 0;
@@ -275,39 +328,144 @@ public class Decimal {
 		return new Decimal(-coefficient, exponent);
 	}
 	
+	/**
+	 * Returns the decimal in standard notation, or in scientific notation such as 1.5E-7 if standard
+	 * notation would take more than maxPreferredDigits numerals and scientific notation is shorter.
+	 * @param maxPreferredDigits
+	 */
 	public String toString(int maxPreferredDigits) {
-		StringBuilder str = new StringBuilder();
+		char[] buffer = new char[getMaxLength(maxPreferredDigits)];
+		return new String(buffer, 0, format(coefficient, exponent, maxPreferredDigits, buffer));
+	}
+	
+	/**
+	 * Returns the length of buffer needed by {@link #format} for the given maxPreferredDigits.
+	 * @param maxPreferredDigits
+	 */
+	public static int getMaxLength(int maxPreferredDigits) {
+		// Standard notation only takes more than 19 numerals and a sign and point when those are
+		// preferred or scientific notation is no shorter, which has at most 19 numerals, a sign, a
+		// point, an E and a signed 10-numeral exponent.
+		return Math.max(maxPreferredDigits, 19) + 2 + 13;
+	}
+	
+	/**
+	 * Writes coefficient * 10 ^ exponent into buffer in the same way as {@link #toString(int)},
+	 * without creating any objects, and returns the number of characters written.
+	 * @param coefficient
+	 * @param exponent
+	 * @param maxPreferredDigits
+	 * @param buffer It must have a length of at least {@link #getMaxLength(int)}.
+	 */
+	public static int format(long coefficient, int exponent, int maxPreferredDigits, char[] buffer) {
+		if (coefficient == 0) {
+			buffer[0] = '0';
+			return 1;
+		}
+		while (coefficient % BASE == 0) {
+			coefficient /= BASE;
+			exponent ++;
+		}
+		return format(coefficient, exponent, isScientific(coefficient, exponent, maxPreferredDigits), buffer);
+	}
+	
+	/**
+	 * Returns whether {@link #format(long, int, int, char[])} writes coefficient * 10 ^ exponent in
+	 * scientific notation, which is when standard notation would take more than maxPreferredDigits
+	 * numerals and scientific notation is shorter. Calling this once with the coefficient of
+	 * largest magnitude picks one notation for all the decimals with the same exponent, such as
+	 * the labels of an axis.
+	 * @param coefficient
+	 * @param exponent
+	 * @param maxPreferredDigits
+	 */
+	static boolean isScientific(long coefficient, int exponent, int maxPreferredDigits) {
+		if (coefficient == 0) {
+			return false;
+		}
+		if (coefficient < 0) {
+			coefficient = -coefficient;
+		}
 		
+		int numerals = getNumerals(coefficient);
+		int standardNumerals = exponent >= 0 ? numerals + exponent : Math.max(numerals, 1 - exponent);
+		int standardLength = standardNumerals + (exponent < 0 ? 1 : 0);
+		long scientificExponent = (long)exponent + numerals - 1;
+		int scientificLength = numerals + (numerals > 1 ? 1 : 0) + 1 + (scientificExponent < 0 ? 1 : 0)
+				+ getNumerals(Math.abs(scientificExponent));
+		return standardNumerals > maxPreferredDigits && scientificLength < standardLength;
+	}
+	
+	/**
+	 * Writes coefficient * 10 ^ exponent into buffer in the given notation, so that several
+	 * decimals can be written in the same one, and returns the number of characters written.
+	 * @param coefficient
+	 * @param exponent
+	 * @param scientific whether to write the decimal in scientific notation
+	 * @param buffer It must have a length of at least {@link #getMaxLength(int)} if the notation
+	 * was picked by {@link #isScientific} for a decimal with the same exponent and at least the
+	 * same magnitude.
+	 */
+	static int format(long coefficient, int exponent, boolean scientific, char[] buffer) {
 		if (coefficient == 0) {
-			str.append('0');
+			buffer[0] = '0';
+			return 1;
+		}
+		while (coefficient % BASE == 0) {
+			coefficient /= BASE;
+			exponent ++;
+		}
+		
+		int length = 0;
+		if (coefficient < 0) {
+			buffer[length++] = '-';
+			coefficient = -coefficient;
+		}
+		
+		int numerals = getNumerals(coefficient);
+		int standardNumerals = exponent >= 0 ? numerals + exponent : Math.max(numerals, 1 - exponent);
+		long scientificExponent = (long)exponent + numerals - 1;
+		long absExponent = Math.abs(scientificExponent);
+		if (scientific) {
+			length = writeNumerals(coefficient, numerals, 1, buffer, length);
+			buffer[length++] = 'E';
+			if (scientificExponent < 0) {
+				buffer[length++] = '-';
+			}
+			length = writeNumerals(absExponent, getNumerals(absExponent), getNumerals(absExponent), buffer, length);
 		} else if (exponent >= 0) {
-			str.append(getStandardNotation());
+			length = writeNumerals(coefficient, numerals, numerals, buffer, length);
+			for (int i=0; i<exponent; i++) {
+				buffer[length++] = '0';
+			}
 		} else {
-			str.append(getStandardNotation());
+			length = writeNumerals(coefficient, standardNumerals, standardNumerals + exponent, buffer, length);
 		}
-		return str.toString();
+		return length;
 	}
 	
-	private String getStandardNotation() {
-		StringBuilder str = new StringBuilder();
-		long coeff = coefficient, exp = exponent;
-		boolean negative = false;
-		if (coeff < 0) {
-			coeff = -coeff;
-			negative = true;
-		}
-		for (int i=0; i<exp; i++) {
-			str.append('0');
+	// Returns the number of numerals in value, which must not be negative.
+	private static int getNumerals(long value) {
+		int numerals = 1;
+		while (value >= BASE) {
+			value /= BASE;
+			numerals ++;
 		}
-		for (; coeff != 0 || exp <= 0; coeff /= BASE, exp ++) {
-			if (exponent < 0 && exp == 0) {
-				str.append('.');
+		return numerals;
+	}
+	
+	// Writes the last numerals of value starting at offset, with a point after the first
+	// integerNumerals of them if any remain, and returns the offset after the last one.
+	private static int writeNumerals(long value, int numerals, int integerNumerals, char[] buffer, int offset) {
+		int end = offset + numerals + (integerNumerals < numerals ? 1 : 0);
+		int position = end;
+		for (int i=numerals-1; i>=0; i--) {
+			if (i == integerNumerals - 1 && integerNumerals < numerals) {
+				buffer[--position] = '.';
 			}
-			str.append(coeff % BASE);
-		}
-		if (negative) {
-			str.append("-");
+			buffer[--position] = (char)('0' + value % BASE);
+			value /= BASE;
 		}
-		return str.reverse().toString();
+		return end;
 	}
 }
@@ -1,7 +1,9 @@
 package net.patowen.interactiveplot;
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
@@ -9,8 +11,10 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 
 import javax.swing.JComponent;
+import javax.swing.Timer;
 
 /**
  * This class is a swing component that can be used to graph data in a flexible manner.
@@ -27,6 +31,27 @@ public final class InteractivePlot extends JComponent {
 	
 	private PlotMouseHandler mouseHandler;
 	
+	// The drag and wheel events received since the last frame, which are applied when the plot is
+	// next painted
+	private MouseEvent pendingDrag;
+	private MouseWheelEvent pendingWheel;
+	
+	// Whether the pending events are being applied for the frame being painted
+	private boolean applyingInput;
+	
+	// The cached layers of the plot, which are null unless layer caching is enabled
+	private Layer backgroundLayer;
+	private Layer dataLayer;
+	private Layer foregroundLayer;
+	
+	// Runs from the last pan or zoom until the data is redrawn, while the previous data layer is
+	// shown in its place. This is null unless previews are enabled.
+	private Timer previewTimer;
+	
+	// Lowers the quality of the data while the user is panning or zooming, or null if the plot has
+	// no frame budget
+	private FrameBudget frameBudget;
+	
 	/**
 	 * Creates an {@code InteractivePlot} with the given settings.
 	 * @param settings the desired properties of the plot.
@@ -58,28 +83,134 @@ public final class InteractivePlot extends JComponent {
 			throw new IllegalArgumentException("No plot data set.");
 		}
 		plotData.setParent(this);
+		
+		if (settings.layerCaching) {
+			backgroundLayer = new Layer();
+			dataLayer = new Layer();
+			foregroundLayer = new Layer();
+			
+			if (settings.previewDelay > 0) {
+				previewTimer = new Timer(settings.previewDelay, e -> repaint());
+				previewTimer.setRepeats(false);
+			}
+		}
+		
+		if (settings.frameBudget > 0) {
+			frameBudget = new FrameBudget(settings.frameBudget, settings.idleDelay);
+		}
 	}
 	
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		Graphics2D g2 = (Graphics2D)g;
 		
+		if (pendingDrag != null || pendingWheel != null) {
+			if (previewTimer != null) {
+				previewTimer.restart();
+			}
+			if (frameBudget != null) {
+				frameBudget.interacted();
+			}
+		}
+		applyingInput = true;
+		try {
+			applyPendingInput();
+		} finally {
+			applyingInput = false;
+		}
+		
+		// Layers can only be cached if the plot is not rotated or sheared.
+		int type = g2.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION;
+		PlotQuality quality = frameBudget == null ? PlotQuality.FULL : frameBudget.getQuality();
+		if (backgroundLayer != null && (type & ~AffineTransform.TYPE_MASK_SCALE) == 0) {
+			paintLayers(g2, quality);
+			return;
+		}
+		
 		AffineTransform savedTransform = g2.getTransform();
 		g2.translate(axisStyle.getLeftMargin(), axisStyle.getTopMargin());
 		
-		axisStyle.preparePainting(plotScale);
+		axisStyle.preparePainting(plotScale, quality);
 		axisStyle.paintBackground(g2);
 		
 		Shape savedClip = g2.getClip();
+		Object savedAntialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
 		g2.clipRect(0, 0, plotScale.getWidth(), plotScale.getHeight());
-		plotData.drawData(g2, plotScale);
+		drawData(g2, quality);
 		g2.setClip(savedClip);
+		if (savedAntialiasing != null) {
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, savedAntialiasing);
+		}
 		
 		axisStyle.paintForeground(g2);
 		
 		g2.setTransform(savedTransform);
 	}
 	
+	// Paints the plot from its cached layers, redrawing only the layers that are out of date. The
+	// background and foreground depend on the size and bounds of the plot and on the style, while
+	// the data depends on the size and bounds and on the data. While the user is panning or
+	// zooming with previews enabled, the data layer is not redrawn but moved and scaled to the
+	// current view instead, so that the plot follows the mouse however slow the data is to draw.
+	private void paintLayers(Graphics2D g, PlotQuality quality) {
+		double scaleX = g.getTransform().getScaleX(), scaleY = g.getTransform().getScaleY();
+		int left = axisStyle.getLeftMargin(), top = axisStyle.getTopMargin();
+		PlotView view = plotScale.getView();
+		long styleVersion = axisStyle.getVersion();
+		boolean prepared = false;
+		boolean preview = previewTimer != null && previewTimer.isRunning()
+				&& dataLayer.canPreview(view, scaleX, scaleY, plotData.getVersion());
+		
+		Graphics2D lg = backgroundLayer.update(g, getWidth(), getHeight(), scaleX, scaleY, view, quality, styleVersion);
+		if (lg != null) {
+			axisStyle.preparePainting(plotScale, quality);
+			prepared = true;
+			lg.translate(left, top);
+			axisStyle.paintBackground(lg);
+			lg.dispose();
+		}
+		
+		lg = preview ? null : dataLayer.update(g, view.getWidth(), view.getHeight(), scaleX, scaleY,
+				view, quality, plotData.getVersion());
+		if (lg != null) {
+			lg.clipRect(0, 0, plotScale.getWidth(), plotScale.getHeight());
+			drawData(lg, quality);
+			lg.dispose();
+		}
+		
+		lg = foregroundLayer.update(g, getWidth(), getHeight(), scaleX, scaleY, view, quality, styleVersion);
+		if (lg != null) {
+			if (!prepared) {
+				axisStyle.preparePainting(plotScale, quality);
+			}
+			lg.translate(left, top);
+			axisStyle.paintForeground(lg);
+			lg.dispose();
+		}
+		
+		backgroundLayer.draw(g, 0, 0);
+		if (preview) {
+			dataLayer.drawPreview(g, left, top, view);
+		} else {
+			dataLayer.draw(g, left, top);
+		}
+		foregroundLayer.draw(g, 0, 0);
+	}
+	
+	// Draws the data with the given quality, timing it if the plot has a frame budget.
+	private void drawData(Graphics2D g, PlotQuality quality) {
+		if (!quality.isAntialiased()) {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		}
+		if (frameBudget == null) {
+			plotData.drawData(g, plotScale);
+			return;
+		}
+		long startTime = System.nanoTime();
+		plotData.drawData(g, plotScale, quality);
+		frameBudget.record(quality, System.nanoTime() - startTime);
+	}
+	
 	/**
 	 * Returns a {@code PlotMouseLocation} based on the given absolute coordinates of the mouse.
 	 * @param x the x-coordinate of the mouse in absolute coordinates.
@@ -89,6 +220,44 @@ public final class InteractivePlot extends JComponent {
 		return new PlotMouseLocation(plotScale, axisStyle.getLeftMargin(), axisStyle.getTopMargin(), x, y);
 	}
 	
+	/**
+	 * Repaints the plot after the mouse handler has changed the view, unless the change was made
+	 * while applying input for the frame being painted.
+	 */
+	void repaintForInput() {
+		if (!applyingInput) {
+			repaint();
+		}
+	}
+	
+	// Passes the held drag and wheel events to the mouse handler, in the order they arrived. Only
+	// one of them can be held at a time, since a different kind of event applies the held one.
+	private void applyPendingInput() {
+		MouseEvent drag = pendingDrag;
+		MouseWheelEvent wheel = pendingWheel;
+		pendingDrag = null;
+		pendingWheel = null;
+		if (drag != null) {
+			mouseHandler.mouseDragged(plotScale, getMouseLocation(drag.getX(), drag.getY()), drag);
+		}
+		if (wheel != null) {
+			mouseHandler.mouseWheelMoved(plotScale, getMouseLocation(wheel.getX(), wheel.getY()), wheel);
+		}
+	}
+	
+	// Returns a wheel event at the location of e whose rotation is that of both events, or null if
+	// the events scroll differently or have different modifiers.
+	private static MouseWheelEvent mergeWheelEvents(MouseWheelEvent previous, MouseWheelEvent e) {
+		if (previous.getScrollType() != e.getScrollType() || previous.getScrollAmount() != e.getScrollAmount()
+				|| previous.getModifiersEx() != e.getModifiersEx()) {
+			return null;
+		}
+		return new MouseWheelEvent(e.getComponent(), e.getID(), e.getWhen(), e.getModifiersEx(),
+				e.getX(), e.getY(), e.getXOnScreen(), e.getYOnScreen(), e.getClickCount(), e.isPopupTrigger(),
+				e.getScrollType(), e.getScrollAmount(), previous.getWheelRotation() + e.getWheelRotation(),
+				previous.getPreciseWheelRotation() + e.getPreciseWheelRotation());
+	}
+	
 	private class MouseHandler extends MouseAdapter {
 		private MouseHandler(JComponent component) {
 			component.addMouseListener(this);
@@ -98,19 +267,166 @@ public final class InteractivePlot extends JComponent {
 		
 		public void mousePressed(MouseEvent e) {
 			requestFocusInWindow();
+			applyPendingInput();
 			mouseHandler.mousePressed(plotScale, getMouseLocation(e.getX(), e.getY()), e);
 		}
 		
 		public void mouseReleased(MouseEvent e) {
+			applyPendingInput();
 			mouseHandler.mouseReleased(plotScale, getMouseLocation(e.getX(), e.getY()), e);
 		}
 		
 		public void mouseDragged(MouseEvent e) {
-			mouseHandler.mouseDragged(plotScale, getMouseLocation(e.getX(), e.getY()), e);
+			if (pendingWheel != null) {
+				applyPendingInput();
+			}
+			pendingDrag = e;
+			repaint();
 		}
 		
 		public void mouseWheelMoved(MouseWheelEvent e) {
-			mouseHandler.mouseWheelMoved(plotScale, getMouseLocation(e.getX(), e.getY()), e);
+			if (pendingDrag != null) {
+				applyPendingInput();
+			}
+			if (pendingWheel != null) {
+				MouseWheelEvent merged = mergeWheelEvents(pendingWheel, e);
+				if (merged == null) {
+					applyPendingInput();
+				} else {
+					e = merged;
+				}
+			}
+			pendingWheel = e;
+			repaint();
+		}
+	}
+	
+	/**
+	 * An image holding part of the plot, which is redrawn only when what it depends on changes.
+	 * The image has one pixel per device pixel, so it stays sharp on high resolution displays.
+	 */
+	private static final class Layer {
+		private BufferedImage image;
+		private int width, height;
+		private double scaleX, scaleY;
+		private PlotView view;
+		private PlotQuality quality;
+		private long contentVersion;
+		
+		/**
+		 * Returns a graphics context to redraw the layer with if it is out of date, or
+		 * {@code null} if it is not. The graphics context is scaled so that its units are the
+		 * same as those of {@code g}, and it has the same font and rendering hints.
+		 * @param g the graphics context the layer will be drawn in
+		 * @param width the width of the layer in the units of {@code g}
+		 * @param height the height of the layer in the units of {@code g}
+		 * @param scaleX the number of device pixels per unit of {@code g} horizontally
+		 * @param scaleY the number of device pixels per unit of {@code g} vertically
+		 * @param view the view of the plot the layer depends on
+		 * @param quality the quality the layer is drawn with
+		 * @param contentVersion the version of the content the layer depends on
+		 */
+		private Graphics2D update(Graphics2D g, int width, int height, double scaleX, double scaleY,
+				PlotView view, PlotQuality quality, long contentVersion) {
+			if (image != null && this.width == width && this.height == height
+					&& this.scaleX == scaleX && this.scaleY == scaleY && this.view.getVersion() == view.getVersion()
+					&& this.quality == quality && this.contentVersion == contentVersion) {
+				return null;
+			}
+			
+			int imageWidth = Math.max(1, (int)Math.ceil(width * scaleX));
+			int imageHeight = Math.max(1, (int)Math.ceil(height * scaleY));
+			if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+				image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+			}
+			this.width = width;
+			this.height = height;
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.view = view;
+			this.quality = quality;
+			this.contentVersion = contentVersion;
+			
+			Graphics2D lg = image.createGraphics();
+			lg.setComposite(AlphaComposite.Clear);
+			lg.fillRect(0, 0, imageWidth, imageHeight);
+			lg.setComposite(AlphaComposite.SrcOver);
+			lg.setRenderingHints(g.getRenderingHints());
+			lg.setFont(g.getFont());
+			lg.setColor(g.getColor());
+			lg.scale(scaleX, scaleY);
+			return lg;
+		}
+		
+		/**
+		 * Draws the layer with its top-left corner at the given position.
+		 */
+		private void draw(Graphics2D g, int x, int y) {
+			g.drawImage(image, x, y, width, height, null);
+		}
+		
+		/**
+		 * Returns whether the layer can be moved and scaled to stand in for one drawn for the
+		 * given view, which is the case if only the bounds of the view have changed.
+		 */
+		private boolean canPreview(PlotView view, double scaleX, double scaleY, long contentVersion) {
+			return image != null && this.view.getWidth() == view.getWidth() && this.view.getHeight() == view.getHeight()
+					&& this.scaleX == scaleX && this.scaleY == scaleY && this.contentVersion == contentVersion
+					&& view.getTransformFrom(this.view) != null;
+		}
+		
+		/**
+		 * Draws the layer moved and scaled from the view it was drawn for to the given view, clipped
+		 * to the area it would have if it were drawn for that view, with its top-left corner at the
+		 * given position.
+		 */
+		private void drawPreview(Graphics2D g, int x, int y, PlotView view) {
+			Graphics2D pg = (Graphics2D)g.create();
+			pg.clipRect(x, y, width, height);
+			pg.translate(x, y);
+			pg.transform(view.getTransformFrom(this.view));
+			pg.drawImage(image, 0, 0, width, height, null);
+			pg.dispose();
+		}
+	}
+	
+	/**
+	 * Chooses the quality of each frame from how long the data took to draw in the previous ones.
+	 * While the user is panning or zooming, the quality is lowered a step whenever drawing the
+	 * data takes longer than the budget, and raised a step whenever it takes less than half of it.
+	 * Once the user has been idle for the idle delay, the plot is repainted at full quality. The
+	 * quality reached is kept as the starting point of the next interaction.
+	 */
+	private final class FrameBudget {
+		private final long budget;
+		private final Timer idleTimer;
+		private int level;
+		
+		private FrameBudget(int budgetMillis, int idleDelay) {
+			budget = budgetMillis * 1000000L;
+			idleTimer = new Timer(idleDelay, e -> repaint());
+			idleTimer.setRepeats(false);
+			level = 0;
+		}
+		
+		private void interacted() {
+			idleTimer.restart();
+		}
+		
+		private PlotQuality getQuality() {
+			return idleTimer.isRunning() ? PlotQuality.LEVELS[level] : PlotQuality.FULL;
+		}
+		
+		/**
+		 * Adjusts the quality of the following frames after the data took the given time to draw
+		 * with the given quality.
+		 */
+		private void record(PlotQuality quality, long time) {
+			if (time > budget) {
+				level = Math.min(quality.getLevel() + 1, PlotQuality.LEVELS.length - 1);
+			} else if (time < budget / 2) {
+				level = Math.max(quality.getLevel() - 1, 0);
+			}
 		}
 	}
 	
@@ -144,6 +460,10 @@ public final class InteractivePlot extends JComponent {
 		private AxisScale xAxisScale;
 		private AxisScale yAxisScale;
 		private PlotMouseHandler mouseHandler;
+		private boolean layerCaching;
+		private int previewDelay;
+		private int frameBudget;
+		private int idleDelay;
 		
 		/**
 		 * Constructs a {@code InteractivePlot.Settings} object with default settings. Every setting
@@ -159,6 +479,10 @@ public final class InteractivePlot extends JComponent {
 			xAxisScale = new LinearAxisScale();
 			yAxisScale = new LinearAxisScale();
 			mouseHandler = new BasicPlotMouseHandler();
+			layerCaching = false;
+			previewDelay = 0;
+			frameBudget = 0;
+			idleDelay = 0;
 		}
 		
 		/**
@@ -241,5 +565,53 @@ public final class InteractivePlot extends JComponent {
 			}
 			this.mouseHandler = mouseHandler;
 		}
+		
+		/**
+		 * Sets whether the background, data and foreground of the plot are cached in separate
+		 * images. Each image is only redrawn when what it depends on changes: the background and
+		 * foreground when the plot is moved, resized or its style is invalidated with
+		 * {@link PlotStyle#invalidate()}, and the data when the plot is moved, resized or
+		 * {@link PlotData#repaint()} is called. This makes frequent changes to the data cheap,
+		 * but the data must call {@link PlotData#repaint()} whenever it changes. Layer caching
+		 * is disabled by default.
+		 */
+		public void setLayerCaching(boolean layerCaching) {
+			this.layerCaching = layerCaching;
+		}
+		
+		/**
+		 * Sets how long the data of the plot is previewed after the user pans or zooms it, in
+		 * milliseconds. While previewing, the data is not redrawn, but the last drawn data is moved
+		 * and scaled to match the new view, which takes a single image draw however expensive the
+		 * data is. Parts of the plot that were not visible before are left empty. Once the user has
+		 * stopped panning and zooming for the given delay, the data is drawn again. This only has an
+		 * effect with layer caching enabled. A delay of zero, the default, disables previews.
+		 */
+		public void setPreviewDelay(int previewDelay) {
+			if (previewDelay < 0) {
+				throw new IllegalArgumentException("previewDelay cannot be negative");
+			}
+			this.previewDelay = previewDelay;
+		}
+		
+		/**
+		 * Sets the time the data of the plot should take to draw while the user is panning or
+		 * zooming it. Whenever drawing the data takes longer, the following frames are drawn with
+		 * lower {@link PlotQuality quality}: without antialiasing, with fewer samples and coarser
+		 * columns, and with fewer axis labels. Once the user has stopped panning and zooming for
+		 * the idle delay, the plot is drawn at full quality again. Data classes can take part by
+		 * overriding {@link PlotData#drawData(Graphics2D, PlotScale, PlotQuality)}. A budget of
+		 * zero, the default, always draws at full quality.
+		 * @param frameBudget the time to draw the data in, in milliseconds
+		 * @param idleDelay the time without panning or zooming after which the plot is drawn at full
+		 * quality, in milliseconds
+		 */
+		public void setFrameBudget(int frameBudget, int idleDelay) {
+			if (frameBudget < 0 || idleDelay < 0) {
+				throw new IllegalArgumentException("frameBudget and idleDelay cannot be negative");
+			}
+			this.frameBudget = frameBudget;
+			this.idleDelay = idleDelay;
+		}
 	}
 }
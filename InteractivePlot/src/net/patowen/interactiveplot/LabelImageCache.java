@@ -0,0 +1,218 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of pre-rendered text, shared by every plot. Laying out and drawing a string is
+ * among the most expensive things Java2D does, while the labels of an axis rarely change from one
+ * paint to the next. Each string is rendered once into an image in device pixels, along with its
+ * bounds, and later drawn with a single image blit. Images are keyed by the text, font and color,
+ * the transform of the graphics context other than its translation, and the text rendering hints,
+ * so that rotated and high-resolution text is cached as well. The least recently used images are
+ * discarded once the cache is full. Text drawn for a printer or vector output is never rendered
+ * into an image, so that it stays text.
+ * <p>
+ * The cache is locked only to look up and insert images, and text is rendered outside the lock, so
+ * that plots painting on several threads at once do not wait for each other's missing labels.
+ * @author Patrick Owen
+ */
+final class LabelImageCache {
+	private static final LabelImageCache SHARED = new LabelImageCache(1024);
+	
+	private static final AffineTransform IDENTITY = new AffineTransform();
+	
+	private final Map<Key, LabelImage> images;
+	
+	// Reused to look up images without creating a key, guarded by this
+	private final Key probe = new Key();
+	
+	private LabelImageCache(int maxImages) {
+		images = new LinkedHashMap<Key, LabelImage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			protected boolean removeEldestEntry(Map.Entry<Key, LabelImage> eldest) {
+				return size() > maxImages;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cache shared by all plots.
+	 */
+	static LabelImageCache getShared() {
+		return SHARED;
+	}
+	
+	/**
+	 * Returns the text drawn with the current font and color of the given graphics context,
+	 * rendering it if it is not already cached. Text drawn with subpixel antialiasing cannot be
+	 * rendered into an image, and text drawn for a printer should not be, so both are drawn
+	 * directly instead.
+	 */
+	LabelImage get(Graphics2D g, String text) {
+		AffineTransform transform = g.getTransform();
+		boolean vector = g.getDeviceConfiguration().getDevice().getType() == GraphicsDevice.TYPE_PRINTER;
+		Object antialiasing = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		Object fractionalMetrics = g.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS);
+		synchronized (this) {
+			probe.set(text, g.getFont(), g.getColor().getRGB(), transform, antialiasing, fractionalMetrics, vector);
+			LabelImage image = images.get(probe);
+			if (image != null) {
+				return image;
+			}
+		}
+		
+		Key key = new Key();
+		key.set(text, g.getFont(), g.getColor().getRGB(), transform, antialiasing, fractionalMetrics, vector);
+		LabelImage image = new LabelImage(key);
+		synchronized (this) {
+			// Another thread may have rendered the same text in the meantime, in which case its
+			// image is kept so that every caller shares one.
+			LabelImage existing = images.putIfAbsent(key, image);
+			return existing != null ? existing : image;
+		}
+	}
+	
+	/**
+	 * A string rendered for one font, color, transform and set of hints.
+	 */
+	static final class LabelImage {
+		private final String text;
+		
+		// The logical bounds of the text relative to its origin, in user space
+		private final Rectangle2D bounds;
+		
+		// The rendered text, or null if it is drawn directly, and the offset of its top-left corner
+		// from the origin of the text in device pixels
+		private final BufferedImage image;
+		private final int imageX, imageY;
+		
+		private LabelImage(Key key) {
+			text = key.text;
+			FontRenderContext frc = new FontRenderContext(
+					new AffineTransform(key.m00, key.m10, key.m01, key.m11, 0, 0),
+					key.antialiasing, key.fractionalMetrics);
+			bounds = key.font.getStringBounds(text, frc);
+			
+			GlyphVector glyphs = key.font.createGlyphVector(frc, text);
+			Rectangle pixels = glyphs.getPixelBounds(null, 0, 0);
+			if (key.vector || isLcd(key.antialiasing) || pixels.isEmpty()) {
+				image = null;
+				imageX = imageY = 0;
+				return;
+			}
+			
+			image = new BufferedImage(pixels.width, pixels.height, BufferedImage.TYPE_INT_ARGB_PRE);
+			imageX = pixels.x;
+			imageY = pixels.y;
+			Graphics2D g = image.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, key.antialiasing);
+			g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, key.fractionalMetrics);
+			g.translate(-pixels.x, -pixels.y);
+			g.transform(frc.getTransform());
+			g.setColor(new Color(key.rgb, true));
+			g.drawGlyphVector(glyphs, 0, 0);
+			g.dispose();
+		}
+		
+		/**
+		 * Returns the logical bounds of the text relative to its origin, as in
+		 * {@link java.awt.FontMetrics#getStringBounds(String, java.awt.Graphics)}.
+		 */
+		Rectangle2D getBounds() {
+			return bounds;
+		}
+		
+		/**
+		 * Draws the text with its origin at the given point. The graphics context must have the
+		 * same font, color, hints and transform other than translation as when the image was
+		 * returned.
+		 */
+		void draw(Graphics2D g, float x, float y) {
+			if (image == null) {
+				g.drawString(text, x, y);
+				return;
+			}
+			
+			// Text is drawn with its origin rounded to the nearest device pixel, as drawString does.
+			AffineTransform transform = g.getTransform();
+			double deviceX = transform.getScaleX() * x + transform.getShearX() * y + transform.getTranslateX();
+			double deviceY = transform.getShearY() * x + transform.getScaleY() * y + transform.getTranslateY();
+			g.setTransform(IDENTITY);
+			g.drawImage(image, (int)Math.floor(deviceX + 0.5) + imageX, (int)Math.floor(deviceY + 0.5) + imageY, null);
+			g.setTransform(transform);
+		}
+		
+		private static boolean isLcd(Object antialiasing) {
+			return antialiasing != RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT
+					&& antialiasing != RenderingHints.VALUE_TEXT_ANTIALIAS_OFF
+					&& antialiasing != RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+					&& antialiasing != RenderingHints.VALUE_TEXT_ANTIALIAS_GASP;
+		}
+	}
+	
+	/**
+	 * Everything that affects how a string is rendered.
+	 */
+	private static final class Key {
+		private String text;
+		private Font font;
+		private int rgb;
+		private double m00, m01, m10, m11;
+		private Object antialiasing;
+		private Object fractionalMetrics;
+		
+		// Whether the text is drawn for a printer or vector output
+		private boolean vector;
+		
+		private void set(String text, Font font, int rgb, AffineTransform transform,
+				Object antialiasing, Object fractionalMetrics, boolean vector) {
+			this.text = text;
+			this.font = font;
+			this.rgb = rgb;
+			// Adding zero turns -0.0 into 0.0, which equals it, so that both have the same hash.
+			m00 = transform.getScaleX() + 0.0;
+			m01 = transform.getShearX() + 0.0;
+			m10 = transform.getShearY() + 0.0;
+			m11 = transform.getScaleY() + 0.0;
+			this.antialiasing = antialiasing == null ? RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT : antialiasing;
+			this.fractionalMetrics = fractionalMetrics == null ? RenderingHints.VALUE_FRACTIONALMETRICS_DEFAULT
+					: fractionalMetrics;
+			this.vector = vector;
+		}
+		
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key)obj;
+			return text.equals(key.text) && font.equals(key.font) && rgb == key.rgb
+					&& m00 == key.m00 && m01 == key.m01 && m10 == key.m10 && m11 == key.m11
+					&& antialiasing == key.antialiasing && fractionalMetrics == key.fractionalMetrics
+					&& vector == key.vector;
+		}
+		
+		public int hashCode() {
+			int hash = text.hashCode();
+			hash = 31 * hash + font.hashCode();
+			hash = 31 * hash + rgb;
+			hash = 31 * hash + Double.hashCode(m00);
+			hash = 31 * hash + Double.hashCode(m01);
+			hash = 31 * hash + Double.hashCode(m10);
+			hash = 31 * hash + Double.hashCode(m11);
+			return hash;
+		}
+	}
+}
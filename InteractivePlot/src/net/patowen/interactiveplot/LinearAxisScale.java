@@ -8,6 +8,12 @@ package net.patowen.interactiveplot;
  */
 public class LinearAxisScale extends AxisScale
 {
+	// The most labels created for a single range, so that a tiny interval cannot take forever
+	private static final int MAX_LABELS = 10000;
+	
+	// The numerals preferred in a label before switching to scientific notation
+	private static final int MAX_PREFERRED_DIGITS = 5;
+	
 	public double getReal(double linear) {
 		return linear;
 	}
@@ -16,17 +22,57 @@ public class LinearAxisScale extends AxisScale
 		return real;
 	}
 	
+	public void getReal(double[] linear, double[] real, int start, int end) {
+		if (linear != real) {
+			System.arraycopy(linear, start, real, start, end - start);
+		}
+	}
+	
+	public void getLinear(double[] real, double[] linear, int start, int end) {
+		if (real != linear) {
+			System.arraycopy(real, start, linear, start, end - start);
+		}
+	}
+	
 	public TickLabelList getLabels(double linearMin, double linearMax, double minLinearInterval) {
 		TickLabelList labels = new TickLabelList();
+		if (!(minLinearInterval > 0) || Double.isInfinite(minLinearInterval)
+				|| !Double.isFinite(linearMin) || !Double.isFinite(linearMax)) {
+			return labels;
+		}
 		
+		// Tick k is k * spacingCoefficient * 10 ^ exponent, so stepping through the ticks only
+		// takes primitive arithmetic.
 		Decimal spacing = Decimal.nextIncrement(minLinearInterval);
-		for (Decimal tick = Decimal.getLowerBound(linearMin, spacing);
-				tick.compare(linearMax) <= 0; tick = tick.plus(spacing)) {
-			if (tick.compare(linearMin) >= 0) {
-				labels.addLabel(new TickLabel(tick.getDoubleValue(), tick.toString(5)));
-			}
+		long spacingCoefficient = spacing.getCoefficient();
+		int exponent = spacing.getExponent();
+		char[] text = new char[Decimal.getMaxLength(MAX_PREFERRED_DIGITS)];
+		
+		// The first and last ticks in range are found up front, since one of them is the largest in
+		// magnitude and decides the notation of every label, so that the labels of an axis match.
+		long first = Decimal.getLowerMultiple(linearMin, spacing);
+		for (int i=0; i<MAX_LABELS && Decimal.compare(first * spacingCoefficient, exponent, linearMin) < 0; i++) {
+			first++;
+		}
+		long last = Decimal.getLowerMultiple(linearMax, spacing);
+		for (int i=0; i<MAX_LABELS && Decimal.compare((last+1) * spacingCoefficient, exponent, linearMax) <= 0; i++) {
+			last++;
+		}
+		last = Math.min(last, first + MAX_LABELS - 1);
+		boolean scientific = Decimal.isScientific(Math.max(Math.abs(first), Math.abs(last)) * spacingCoefficient,
+				exponent, MAX_PREFERRED_DIGITS);
+		
+		for (long k = first; k <= last; k++) {
+			long coefficient = k * spacingCoefficient;
+			int length = Decimal.format(coefficient, exponent, scientific, text);
+			labels.addLabel(new TickLabel(coefficient, exponent, new String(text, 0, length)));
 		}
 		
 		return labels;
 	}
+	
+	public boolean hasSameLabels(double minLinearInterval, double otherMinLinearInterval) {
+		return Decimal.nextIncrement(minLinearInterval).getDoubleValue()
+				== Decimal.nextIncrement(otherMinLinearInterval).getDoubleValue();
+	}
 }
@@ -1,5 +1,8 @@
 package net.patowen.interactiveplot;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,6 +13,16 @@ import java.util.Optional;
  */
 public class LogAxisScale extends AxisScale
 {
+	// The most labels created for a single range, so that a tiny interval cannot take forever
+	private static final int MAX_LABELS = 10000;
+	
+	// The numerals preferred in a label before switching to scientific notation
+	private static final int MAX_PREFERRED_DIGITS = 5;
+	
+	// The subdivision of a decade last used, which is immutable so that it can be shared between
+	// threads
+	private volatile DecadePattern pattern;
+	
 	public double getReal(double linear) {
 		return Math.pow(10, linear);
 	}
@@ -18,35 +31,162 @@ public class LogAxisScale extends AxisScale
 		return Math.log10(real);
 	}
 	
+	public void getReal(double[] linear, double[] real, int start, int end) {
+		for (int i = start; i < end; i++) {
+			real[i] = Math.pow(10, linear[i]);
+		}
+	}
+	
+	public void getLinear(double[] real, double[] linear, int start, int end) {
+		for (int i = start; i < end; i++) {
+			linear[i] = Math.log10(real[i]);
+		}
+	}
+	
 	public TickLabelList getLabels(double linearMin, double linearMax, double minLinearInterval) {
 		TickLabelList labels = new TickLabelList();
+		if (!(minLinearInterval > 0) || Double.isInfinite(minLinearInterval)
+				|| !Double.isFinite(linearMin) || !Double.isFinite(linearMax)) {
+			return labels;
+		}
+		
 		int spacing = Decimal.nextLogIncrement(minLinearInterval);
-		for (int tick = Math.floorDiv((int)Math.floor(linearMin), spacing) * spacing;
-				tick <= linearMax; tick += spacing) {
-			Decimal value = new Decimal(1, tick);
+		Ticks ticks = new Ticks();
+		if (spacing == 1 && (linearMax - linearMin < 1 || 1 / minLinearInterval > MAX_LABELS)) {
+			// Within less than a decade, most of a pattern for the whole decade would be out of
+			// view, so only the visible part of each decade is subdivided.
+			for (long tick = (long)Math.floor(linearMin); tick <= linearMax && ticks.size < MAX_LABELS; tick++) {
+				if (tick >= linearMin) {
+					ticks.add(1, (int)tick);
+				}
+				fill(ticks, new Decimal(1, (int)tick), new Decimal(1, (int)tick + 1), linearMin, linearMax,
+						minLinearInterval);
+			}
+			ticks.addLabels(labels);
+			return labels;
+		}
+		
+		DecadePattern pattern = spacing == 1 ? getPattern(minLinearInterval) : null;
+		
+		long first = Math.floorDiv((long)Math.floor(linearMin), spacing) * spacing;
+		for (long tick = first; tick <= linearMax && ticks.size < MAX_LABELS; tick += spacing) {
 			if (tick >= linearMin) {
-				labels.addLabel(new TickLabel(value.getDoubleValue(), value.toString(5)));
+				ticks.add(1, (int)tick);
 			}
-			if (spacing == 1) {
-				fill(labels, value, value.times(new Decimal(1, 1)), linearMin, linearMax, minLinearInterval);
+			if (pattern != null) {
+				// Every decade is subdivided the same way, so the labels of the pattern only need
+				// their exponents shifted.
+				for (int i = 0; i < pattern.coefficients.length; i++) {
+					int exponent = pattern.exponents[i] + (int)tick;
+					double linear = getLinear(Decimal.toDouble(pattern.coefficients[i], exponent));
+					if (linear >= linearMin && linear <= linearMax) {
+						ticks.add(pattern.coefficients[i], exponent);
+					}
+				}
 			}
 		}
 		
+		ticks.addLabels(labels);
 		return labels;
 	}
 	
-	private void fill(TickLabelList labels, Decimal min, Decimal max, double linearMin, double linearMax, double minLinearInterval) {
-		if (min.compare(Math.pow(10, linearMax)) > 0) return;
-		if (max.compare(Math.pow(10, linearMin)) < 0) return;
+	// Returns the subdivision of a decade for the given interval, reusing the last one if the
+	// interval is the same. This is only used when at least a decade is in view, so that the
+	// pattern is no larger than the labels it produces.
+	private DecadePattern getPattern(double minLinearInterval) {
+		DecadePattern pattern = this.pattern;
+		if (pattern == null || pattern.minLinearInterval != minLinearInterval) {
+			List<Decimal> values = new ArrayList<>();
+			fill(values, new Decimal(1), new Decimal(10), minLinearInterval);
+			pattern = new DecadePattern(minLinearInterval, values);
+			this.pattern = pattern;
+		}
+		return pattern;
+	}
+	
+	// Adds the labels between min and max, exclusive, by repeatedly splitting the range at the
+	// value furthest from both ends.
+	private void fill(List<Decimal> values, Decimal min, Decimal max, double minLinearInterval) {
+		Optional<Decimal> middle = Decimal.getMiddleValue(min, max, minLinearInterval, x -> getLinear(x));
+		if (middle.isPresent()) {
+			values.add(middle.get());
+			fill(values, min, middle.get(), minLinearInterval);
+			fill(values, middle.get(), max, minLinearInterval);
+		}
+	}
+	
+	// Adds the labels between min and max, exclusive, that are within the given range, skipping
+	// the parts of the range between min and max that are out of view.
+	private void fill(Ticks ticks, Decimal min, Decimal max, double linearMin, double linearMax,
+			double minLinearInterval) {
+		if (ticks.size >= MAX_LABELS
+				|| min.compare(getReal(linearMax)) > 0 || max.compare(getReal(linearMin)) < 0) {
+			return;
+		}
 		
 		Optional<Decimal> middle = Decimal.getMiddleValue(min, max, minLinearInterval, x -> getLinear(x));
 		if (middle.isPresent()) {
 			double linearMiddle = getLinear(middle.get().getDoubleValue());
 			if (linearMiddle >= linearMin && linearMiddle <= linearMax) {
-				labels.addLabel(new TickLabel(middle.get().getDoubleValue(), middle.get().toString(5)));
+				ticks.add(middle.get().getCoefficient(), middle.get().getExponent());
+			}
+			fill(ticks, min, middle.get(), linearMin, linearMax, minLinearInterval);
+			fill(ticks, middle.get(), max, linearMin, linearMax, minLinearInterval);
+		}
+	}
+	
+	/**
+	 * The values of the labels of a range, which are only written once all of them are known, so
+	 * that the labels of an axis are all written in the same notation. Since their exponents
+	 * differ, scientific notation is used for all of them if any one of them would use it.
+	 */
+	private static final class Ticks {
+		private long[] coefficients = new long[16];
+		private int[] exponents = new int[16];
+		private int size;
+		
+		private void add(long coefficient, int exponent) {
+			if (size == coefficients.length) {
+				coefficients = Arrays.copyOf(coefficients, size * 2);
+				exponents = Arrays.copyOf(exponents, size * 2);
+			}
+			coefficients[size] = coefficient;
+			exponents[size] = exponent;
+			size++;
+		}
+		
+		private void addLabels(TickLabelList labels) {
+			boolean scientific = false;
+			for (int i = 0; i < size && !scientific; i++) {
+				scientific = Decimal.isScientific(coefficients[i], exponents[i], MAX_PREFERRED_DIGITS);
+			}
+			
+			char[] text = new char[Decimal.getMaxLength(MAX_PREFERRED_DIGITS)];
+			for (int i = 0; i < size; i++) {
+				int length = Decimal.format(coefficients[i], exponents[i], scientific, text);
+				labels.addLabel(new TickLabel(coefficients[i], exponents[i], new String(text, 0, length)));
+			}
+		}
+	}
+	
+	/**
+	 * The labels strictly between 1 and 10 for a given minimum interval. Since the linear distance
+	 * between two values does not change when both are multiplied by a power of ten, the same
+	 * labels subdivide every other decade.
+	 */
+	private static final class DecadePattern {
+		private final double minLinearInterval;
+		private final long[] coefficients;
+		private final int[] exponents;
+		
+		private DecadePattern(double minLinearInterval, List<Decimal> values) {
+			this.minLinearInterval = minLinearInterval;
+			coefficients = new long[values.size()];
+			exponents = new int[values.size()];
+			for (int i = 0; i < values.size(); i++) {
+				coefficients[i] = values.get(i).getCoefficient();
+				exponents[i] = values.get(i).getExponent();
 			}
-			fill(labels, min, middle.get(), linearMin, linearMax, minLinearInterval);
-			fill(labels, middle.get(), max, linearMin, linearMax, minLinearInterval);
 		}
 	}
 	
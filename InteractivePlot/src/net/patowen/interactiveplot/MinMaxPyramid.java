@@ -0,0 +1,122 @@
+package net.patowen.interactiveplot;
+
+/**
+ * An index over an array of values that finds the minimum and maximum of any range of indices in
+ * logarithmic time. The values are divided into blocks of {@link #BLOCK_SIZE}, and a segment tree
+ * holds the minimum and maximum of every block and every power-of-two run of blocks above it. A
+ * query scans the partial blocks at either end of the range and combines whole blocks through the
+ * tree. NaN values are ignored. This class is not thread-safe.
+ * @author Patrick Owen
+ */
+final class MinMaxPyramid {
+	/**
+	 * The number of values in a block, the smallest unit the tree indexes.
+	 */
+	static final int BLOCK_SIZE = 64;
+	
+	private final double[] values;
+	private final int blocks;
+	
+	// Node i has children 2i and 2i+1, and block j is node blocks + j. Empty nodes hold an
+	// infinite minimum and a negative infinite maximum.
+	private final double[] min;
+	private final double[] max;
+	
+	/**
+	 * Builds the index over the given values. The array is used directly rather than copied, so
+	 * it should only be modified through {@link #set}.
+	 */
+	MinMaxPyramid(double[] values) {
+		this.values = values;
+		blocks = Math.max(1, (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		min = new double[2 * blocks];
+		max = new double[2 * blocks];
+		
+		for (int i = 0; i < blocks; i++) {
+			updateBlock(i);
+		}
+		for (int i = blocks - 1; i > 0; i--) {
+			updateNode(i);
+		}
+	}
+	
+	/**
+	 * Changes a single value and updates the index.
+	 */
+	void set(int index, double value) {
+		values[index] = value;
+		int block = index / BLOCK_SIZE;
+		updateBlock(block);
+		for (int node = (blocks + block) / 2; node > 0; node /= 2) {
+			updateNode(node);
+		}
+	}
+	
+	/**
+	 * Returns the smallest value with an index in {@code [from, to)}, or positive infinity if
+	 * there is none.
+	 */
+	double getMin(int from, int to) {
+		return query(from, to, true);
+	}
+	
+	/**
+	 * Returns the largest value with an index in {@code [from, to)}, or negative infinity if there
+	 * is none.
+	 */
+	double getMax(int from, int to) {
+		return query(from, to, false);
+	}
+	
+	private double query(int from, int to, boolean findMin) {
+		double result = findMin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+		int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int lastBlock = to / BLOCK_SIZE;
+		
+		// Ranges within a single block are scanned directly.
+		if (firstBlock >= lastBlock) {
+			return scan(from, to, findMin, result);
+		}
+		
+		result = scan(from, firstBlock * BLOCK_SIZE, findMin, result);
+		result = scan(lastBlock * BLOCK_SIZE, to, findMin, result);
+		
+		double[] tree = findMin ? min : max;
+		for (int l = firstBlock + blocks, r = lastBlock + blocks; l < r; l /= 2, r /= 2) {
+			if ((l & 1) == 1) {
+				result = combine(result, tree[l++], findMin);
+			}
+			if ((r & 1) == 1) {
+				result = combine(result, tree[--r], findMin);
+			}
+		}
+		return result;
+	}
+	
+	private double scan(int from, int to, boolean findMin, double result) {
+		for (int i = from; i < to; i++) {
+			result = combine(result, values[i], findMin);
+		}
+		return result;
+	}
+	
+	// Returns the smaller or larger of the two values, ignoring value if it is NaN.
+	private static double combine(double result, double value, boolean findMin) {
+		if (findMin ? value < result : value > result) {
+			return value;
+		}
+		return result;
+	}
+	
+	private void updateBlock(int block) {
+		int from = block * BLOCK_SIZE;
+		int to = Math.min(values.length, from + BLOCK_SIZE);
+		min[blocks + block] = scan(from, to, true, Double.POSITIVE_INFINITY);
+		max[blocks + block] = scan(from, to, false, Double.NEGATIVE_INFINITY);
+	}
+	
+	private void updateNode(int node) {
+		min[node] = combine(min[2*node], min[2*node + 1], true);
+		max[node] = combine(max[2*node], max[2*node + 1], false);
+	}
+}
@@ -2,6 +2,7 @@ package net.patowen.interactiveplot;
 
 import java.awt.Component;
 import java.awt.Graphics2D;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Subclasses of {@code PlotData} define the data that is drawn in a plot. It has access to the
@@ -12,6 +13,10 @@ import java.awt.Graphics2D;
 public abstract class PlotData {
 	private Component parent;
 	
+	// Incremented by every call to repaint, so that cached drawings of the data can be recognized
+	// as out of date.
+	private final AtomicLong version = new AtomicLong();
+	
 	void setParent(Component parent) {
 		this.parent = parent;
 	}
@@ -21,11 +26,16 @@ public abstract class PlotData {
 	 * data changes.
 	 */
 	public void repaint() {
+		version.incrementAndGet();
 		if (parent != null) {
 			parent.repaint();
 		}
 	}
 	
+	long getVersion() {
+		return version.get();
+	}
+	
 	/**
 	 * Draws the contents of the plot. The origin is set to the top-left coordinate of the plot,
 	 * so coordinates in drawing functions must correspond to pixel coordinates.
@@ -34,4 +44,18 @@ public abstract class PlotData {
 	 * and pixel coordinates
 	 */
 	public abstract void drawData(Graphics2D g, PlotScale plotScale);
+	
+	/**
+	 * Draws the contents of the plot with the given quality. A plot with a frame budget calls this
+	 * method instead of {@link #drawData(Graphics2D, PlotScale)}, so that the data can be drawn
+	 * with less detail while the user is panning or zooming and drawing it in full is too slow.
+	 * By default, the quality is ignored.
+	 * @param g the graphics context
+	 * @param plotScale the current zoom state of the plot, used to convert between real coordinates
+	 * and pixel coordinates
+	 * @param quality how much detail to draw the data with
+	 */
+	public void drawData(Graphics2D g, PlotScale plotScale, PlotQuality quality) {
+		drawData(g, plotScale);
+	}
 }
@@ -1,38 +1,584 @@
 package net.patowen.interactiveplot;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.geom.Line2D;
-import java.util.function.Function;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
+/**
+ * {@code PlotDataFunction} plots a function by sampling it at the center of every pixel column.
+ * By default, the function is sampled while the plot is being painted. If an {@link Executor} is
+ * set, sampling happens in the background instead: a coarse pass that samples every few columns
+ * is followed by refinement passes, and the plot is repainted as each pass finishes. Painting only
+ * ever uses the latest finished samples, so an expensive function cannot freeze the user interface.
+ * Independently of this, a {@link ForkJoinPool} can be set to split the columns of each sampling
+ * pass among several threads, and adaptive sampling can be enabled to sample more densely where a
+ * single sample per column would misrepresent the function.
+ * <p>
+ * Samples are remembered by their x-coordinate in linear coordinates, so when the plot is panned,
+ * only the newly exposed columns are sampled. After zooming or resizing, samples are reused
+ * wherever a new column center lands on an old one. For plots that are zoomed in and out of
+ * repeatedly, a tile cache can be enabled to remember samples at every zoom level visited.
+ * @author Patrick Owen
+ */
 public class PlotDataFunction extends PlotData {
+	// The number of columns evaluated by each batch call during background sampling
+	private static final int BATCH_SIZE = 64;
+	
+	// The largest number of columns a single fork/join task evaluates without splitting
+	private static final int PARALLEL_CHUNK_SIZE = 32;
+	
 	private Object lock = new Object();
-	private Function<Double, Double> fun;
+	private PlotFunction fun;
+	
+	private Executor executor;
+	private int coarseStride;
+	private ForkJoinPool pool;
+	private boolean adaptive;
+	private SampleTileCache tiles;
+	
+	// Incremented whenever the samples being computed become obsolete. Any background sampling
+	// with an older generation stops at the next column it checks.
+	private final AtomicLong generation;
+	
+	// The most recent finished samples, guarded by lock.
+	private ColumnSamples samples;
+	
+	// The last viewport in which every column was sampled, which later viewports reuse samples
+	// from, guarded by lock.
+	private Viewport completed;
+	
+	// The viewport and generation of the last sampling request. These are only accessed while
+	// painting.
+	private Viewport requested;
+	private long requestedGeneration;
+	
+	// Buffers for synchronous painting, which are reused by the next paint. The spare viewport is
+	// never the completed one, since its samples may still be reused.
+	private Viewport spare;
+	private Batch batch;
+	
+	// The path the samples are drawn with, reused by every paint
+	private final Path2D.Double path = new Path2D.Double();
 	
 	public PlotDataFunction() {
 		fun = null;
+		executor = null;
+		coarseStride = 8;
+		pool = null;
+		adaptive = false;
+		tiles = null;
+		generation = new AtomicLong();
 	}
 	
-	public synchronized void setFunction(Function<Double, Double> fun) {
+	/**
+	 * Sets the function to plot. If the function overrides
+	 * {@link PlotFunction#getY(double[], double[], int, int)}, it is evaluated in batches.
+	 * @param fun the function to plot, or {@code null} to plot nothing
+	 */
+	public void setFunction(PlotFunction fun) {
 		synchronized (lock) {
 			this.fun = fun;
+			generation.incrementAndGet();
+			samples = null;
+			completed = null;
+			if (tiles != null) {
+				tiles.clear();
+			}
 		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the executor used to sample the function in the background. If {@code executor} is
+	 * {@code null}, which is the default, the function is sampled while the plot is being painted.
+	 * Unless a fork/join pool is also set, the function is only ever called from one thread at a
+	 * time.
+	 * @param executor the executor to run sampling passes on, or {@code null}
+	 */
+	public void setExecutor(Executor executor) {
+		synchronized (lock) {
+			this.executor = executor;
+			generation.incrementAndGet();
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the pool used to evaluate the function on several threads at once. The pixel columns of
+	 * each sampling pass are split into chunks, which are evaluated in parallel and gathered back
+	 * into a single array of samples. If {@code pool} is {@code null}, which is the default, the
+	 * function is evaluated on a single thread. The function must be thread-safe if a pool is set.
+	 * @param pool the pool to evaluate the function in, such as {@link ForkJoinPool#commonPool()},
+	 * or {@code null}
+	 */
+	public void setForkJoinPool(ForkJoinPool pool) {
+		synchronized (lock) {
+			this.pool = pool;
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets whether the function is sampled adaptively. Adaptive sampling starts by sampling the
+	 * center and edges of every pixel column. Columns in which the function bends or changes
+	 * direction by more than a fraction of a pixel are then subdivided further, up to a fixed
+	 * depth. When a column holds more variation than a single pixel can show, its minimum and
+	 * maximum are drawn as a vertical line, and discontinuities such as asymptotes are not
+	 * connected. Adaptive sampling is disabled by default. With background sampling, it runs after
+	 * the last refinement pass.
+	 * @param adaptive whether to sample adaptively
+	 */
+	public void setAdaptiveSampling(boolean adaptive) {
+		synchronized (lock) {
+			this.adaptive = adaptive;
+			generation.incrementAndGet();
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the size of the tile cache, which remembers samples at every zoom level visited so that
+	 * returning to a region at a zoom level visited before needs no function calls. Samples are
+	 * taken on a regular grid in linear coordinates, whose spacing is the largest power of two
+	 * that is at most the width of a pixel, and the value at the center of each column is
+	 * interpolated between the two nearest samples. Grids are divided into tiles, and the least
+	 * recently used tiles are discarded once the cache exceeds its size. Background sampling
+	 * with a tile cache has no coarse passes, since the grid does not line up with the columns.
+	 * The tile cache is disabled by default.
+	 * @param maxBytes the approximate maximum memory used by the cache in bytes, or 0 to disable
+	 * the cache
+	 */
+	public void setTileCacheSize(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("maxBytes cannot be negative");
+		}
+		synchronized (lock) {
+			tiles = maxBytes == 0 ? null : new SampleTileCache(maxBytes);
+			generation.incrementAndGet();
+			completed = null;
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the number of pixel columns between samples in the first background sampling pass.
+	 * Each following pass halves the spacing until every column is sampled. This is rounded down
+	 * to a power of two and only has an effect if an executor is set.
+	 * @param coarseStride the spacing of the first pass in pixels
+	 */
+	public void setCoarseStride(int coarseStride) {
+		if (coarseStride < 1) {
+			throw new IllegalArgumentException("coarseStride must be positive");
+		}
+		synchronized (lock) {
+			this.coarseStride = Integer.highestOneBit(coarseStride);
+			generation.incrementAndGet();
+		}
+		repaint();
 	}
 	
 	public void drawData(Graphics2D g, PlotScale plotScale) {
-		double[] screenY = new double[plotScale.getWidth()];
-		int off = plotScale.getPixelXLeft();
-		
+		drawData(g, plotScale, PlotQuality.FULL);
+	}
+	
+	/**
+	 * Draws the function. When sampling while painting, only every column that is a multiple of
+	 * the {@link PlotQuality#getSampleStride() sample stride} of the given quality is sampled, and
+	 * adaptive sampling is skipped unless every column is sampled. Background sampling ignores the
+	 * quality, since it never holds up painting.
+	 */
+	public void drawData(Graphics2D g, PlotScale plotScale, PlotQuality quality) {
+		PlotFunction fun;
+		Executor executor;
+		int coarseStride;
+		ForkJoinPool pool;
+		boolean adaptive;
+		SampleTileCache tiles;
+		ColumnSamples current;
+		Viewport previous;
+		long currentGeneration;
 		synchronized (lock) {
-			for (int i = 0; i < screenY.length; i++) {
-				screenY[i] = plotScale.getScreenY(fun.apply(plotScale.getRealX(i+off+0.5)));
+			fun = this.fun;
+			executor = this.executor;
+			coarseStride = this.coarseStride;
+			pool = this.pool;
+			adaptive = this.adaptive;
+			tiles = this.tiles;
+			current = samples;
+			previous = completed;
+			currentGeneration = generation.get();
+		}
+		
+		if (fun == null) {
+			return;
+		}
+		
+		// The samples are taken for a snapshot of the plot, which stays the same even if the plot
+		// is moved while they are being taken on another thread.
+		PlotView view = plotScale.getView();
+		if (executor == null && quality.getSampleStride() > 1) {
+			// Sparse samples are drawn but not kept, since later viewports reuse samples from
+			// completed viewports only.
+			int stride = quality.getSampleStride();
+			Viewport viewport = new Viewport(fun, view, false, spare == previous ? null : spare);
+			viewport.reuse(previous);
+			if (batch == null || batch.xs.length < viewport.width + 1) {
+				batch = new Batch(viewport.width + 1);
+			}
+			sampleColumns(fun, pool, viewport.xs, viewport.ys, viewport.known, 0, stride, batch, () -> false);
+			current = viewport.getSamples(viewport.ys, stride);
+			spare = viewport;
+		} else if (executor == null) {
+			Viewport viewport = new Viewport(fun, view, adaptive, spare == previous ? null : spare);
+			viewport.reuse(previous);
+			if (batch == null || batch.xs.length < viewport.width + 1) {
+				batch = new Batch(viewport.width + 1);
+			}
+			
+			if (tiles != null) {
+				sampleTiles(fun, pool, tiles, viewport, batch, () -> false);
+			} else {
+				sampleColumns(fun, pool, viewport.xs, viewport.ys, viewport.known, 0, 1, batch, () -> false);
+			}
+			if (adaptive) {
+				current = sampleAdaptively(fun, pool, viewport, batch, () -> false);
+			} else {
+				current = viewport.getSamples(viewport.ys, 1);
+			}
+			
+			synchronized (lock) {
+				if (generation.get() == currentGeneration) {
+					viewport.columns = current;
+					completed = viewport;
+				}
 			}
+			spare = previous;
+		} else if (requested == null || !requested.matches(view, adaptive)
+				|| requestedGeneration != generation.get()) {
+			Viewport viewport = new Viewport(fun, view, adaptive, null);
+			requested = viewport;
+			requestedGeneration = generation.incrementAndGet();
+			long gen = requestedGeneration;
+			executor.execute(() -> sampleProgressively(fun, pool, tiles, viewport, coarseStride, gen));
 		}
 		
-		if (fun != null) {
+		if (current != null) {
 			g.setColor(Color.BLACK);
-			for (int i = 0; i < screenY.length - 1; i++) {
-				g.draw(new Line2D.Double(i+off, screenY[i], i+off+1, screenY[i+1]));
+			current.draw(g, plotScale, path);
+		}
+	}
+	
+	// Samples the function in passes of decreasing stride, publishing the samples after each pass.
+	// With a tile cache, the columns are sampled in a single pass instead.
+	private void sampleProgressively(PlotFunction fun, ForkJoinPool pool, SampleTileCache tiles,
+			Viewport viewport, int stride, long gen) {
+		BooleanSupplier cancelled = () -> generation.get() != gen;
+		Viewport previous;
+		synchronized (lock) {
+			previous = completed;
+		}
+		viewport.reuse(previous);
+		Batch batch = new Batch(pool == null ? BATCH_SIZE : BATCH_SIZE * pool.getParallelism());
+		
+		if (tiles != null) {
+			if (!sampleTiles(fun, pool, tiles, viewport, batch, cancelled)) return;
+		} else {
+			if (!sampleColumns(fun, pool, viewport.xs, viewport.ys, viewport.known, 0, stride, batch, cancelled)) return;
+			while (stride > 1) {
+				if (!publish(viewport.getSamples(viewport.ys.clone(), stride), gen)) return;
+				if (!sampleColumns(fun, pool, viewport.xs, viewport.ys, viewport.known, stride/2, stride, batch, cancelled)) return;
+				stride /= 2;
+			}
+		}
+		
+		ColumnSamples finished = viewport.getSamples(viewport.ys, 1);
+		if (viewport.sampler != null) {
+			if (!publish(viewport.getSamples(viewport.ys.clone(), 1), gen)) return;
+			finished = sampleAdaptively(fun, pool, viewport, batch, cancelled);
+			if (finished == null) return;
+		}
+		
+		synchronized (lock) {
+			if (generation.get() != gen) {
+				return;
+			}
+			viewport.columns = finished;
+			completed = viewport;
+			samples = finished;
+		}
+		repaint();
+	}
+	
+	// Samples the center of every column of the viewport by interpolating samples from the tile
+	// cache, evaluating only the samples that are not cached yet. Samples evaluated before
+	// sampling is cancelled are still cached. Returns whether every column was sampled.
+	private static boolean sampleTiles(PlotFunction fun, ForkJoinPool pool, SampleTileCache tiles,
+			Viewport viewport, Batch batch, BooleanSupplier cancelled) {
+		SampleTileCache.Grid grid = tiles.getGrid(viewport.xAxisScale, viewport.linearXLeft,
+				viewport.linearXRight, viewport.width);
+		boolean finished = sampleColumns(fun, pool, grid.xs, grid.ys, grid.known, 0, 1, batch, cancelled);
+		tiles.store(grid);
+		if (!finished) {
+			return false;
+		}
+		
+		grid.interpolate(viewport.ys);
+		Arrays.fill(viewport.known, true);
+		return true;
+	}
+	
+	// Refines the samples at the center of every column of the viewport into adaptively sampled
+	// columns. Returns null if sampling was cancelled.
+	private static ColumnSamples sampleAdaptively(PlotFunction fun, ForkJoinPool pool, Viewport viewport,
+			Batch batch, BooleanSupplier cancelled) {
+		if (!sampleColumns(fun, pool, viewport.edgeXs, viewport.edgeYs, viewport.edgeKnown, 0, 1, batch, cancelled)) {
+			return null;
+		}
+		return viewport.sampler.sample(viewport.ys, viewport.edgeYs, pool, cancelled,
+				viewport.reusedColumns, viewport.columnShift);
+	}
+	
+	// Samples every column from start onward in steps of step that is not yet known, marking it as
+	// known. The columns are gathered into batches, and sampling stops between batches if it is
+	// cancelled. Returns whether every column was sampled.
+	private static boolean sampleColumns(PlotFunction fun, ForkJoinPool pool, double[] xs, double[] ys,
+			boolean[] known, int start, int step, Batch batch, BooleanSupplier cancelled) {
+		int i = start;
+		while (i < xs.length) {
+			if (cancelled.getAsBoolean()) return false;
+			
+			int length = 0;
+			for (; i < xs.length && length < batch.xs.length; i += step) {
+				if (!known[i]) {
+					batch.indices[length] = i;
+					batch.xs[length] = xs[i];
+					length++;
+				}
+			}
+			evaluate(fun, pool, batch.xs, batch.ys, 0, length);
+			for (int k = 0; k < length; k++) {
+				ys[batch.indices[k]] = batch.ys[k];
+				known[batch.indices[k]] = true;
 			}
 		}
+		return true;
+	}
+	
+	// Evaluates the function over the given range of indices, splitting the range among the threads
+	// of the pool if there is one.
+	private static void evaluate(PlotFunction fun, ForkJoinPool pool, double[] xs, double[] ys,
+			int offset, int length) {
+		if (pool == null || length <= PARALLEL_CHUNK_SIZE) {
+			fun.getY(xs, ys, offset, length);
+		} else {
+			pool.invoke(new EvaluationTask(fun, xs, ys, offset, length));
+		}
+	}
+	
+	// Makes the samples visible to painting unless they have become obsolete. Returns whether
+	// sampling should continue.
+	private boolean publish(ColumnSamples finished, long gen) {
+		synchronized (lock) {
+			if (generation.get() != gen) {
+				return false;
+			}
+			samples = finished;
+		}
+		repaint();
+		return true;
+	}
+	
+	/**
+	 * Evaluates a function over a range of indices by splitting the range in half until each piece
+	 * is small enough to evaluate with a single batch call.
+	 */
+	@SuppressWarnings("serial")
+	private static final class EvaluationTask extends RecursiveAction {
+		private final PlotFunction fun;
+		private final double[] xs;
+		private final double[] ys;
+		private final int offset;
+		private final int length;
+		
+		private EvaluationTask(PlotFunction fun, double[] xs, double[] ys, int offset, int length) {
+			this.fun = fun;
+			this.xs = xs;
+			this.ys = ys;
+			this.offset = offset;
+			this.length = length;
+		}
+		
+		protected void compute() {
+			if (length <= PARALLEL_CHUNK_SIZE) {
+				fun.getY(xs, ys, offset, length);
+			} else {
+				int half = length / 2;
+				invokeAll(new EvaluationTask(fun, xs, ys, offset, half),
+						new EvaluationTask(fun, xs, ys, offset + half, length - half));
+			}
+		}
+	}
+	
+	/**
+	 * The buffers used to gather columns into a single batch call.
+	 */
+	private static final class Batch {
+		private final int[] indices;
+		private final double[] xs;
+		private final double[] ys;
+		
+		private Batch(int size) {
+			indices = new int[size];
+			xs = new double[size];
+			ys = new double[size];
+		}
+	}
+	
+	/**
+	 * Holds the viewport that the function is being sampled for, along with the samples at the
+	 * centers of its columns and, for adaptive sampling, at their edges. Once every column has
+	 * been sampled, the viewport also serves as the cache that later viewports reuse samples from.
+	 */
+	private static final class Viewport {
+		// Samples are reused if their position differs by less than this fraction of a pixel.
+		private static final double TOLERANCE = 1e-6;
+		
+		private final PlotView view;
+		private final int pixelXLeft;
+		private final int width;
+		private final double linearXLeft;
+		private final double linearXRight;
+		private final AxisScale xAxisScale;
+		
+		// Only set for adaptive sampling, which depends on the vertical viewport as well.
+		private final AdaptiveSampler sampler;
+		private final int height;
+		private final double linearYTop;
+		private final double linearYBottom;
+		
+		private final double[] xs;
+		private final double[] ys;
+		private final boolean[] known;
+		
+		private final double[] edgeXs;
+		private final double[] edgeYs;
+		private final boolean[] edgeKnown;
+		
+		// Adaptively sampled columns of a previous viewport that can be reused as they are, with
+		// column i of this viewport being column i + columnShift of the previous one.
+		private ColumnSamples reusedColumns;
+		private int columnShift;
+		
+		// The finished samples, set once every column has been sampled.
+		private ColumnSamples columns;
+		
+		// Creates a viewport matching the plot, reusing the arrays of recycled if they are the
+		// right size.
+		private Viewport(PlotFunction fun, PlotView view, boolean adaptive, Viewport recycled) {
+			this.view = view;
+			pixelXLeft = view.getPixelXLeft();
+			width = view.getWidth();
+			linearXLeft = view.getRealXLeft();
+			linearXRight = view.getRealXRight();
+			xAxisScale = view.getXAxisScale();
+			
+			sampler = adaptive ? new AdaptiveSampler(fun, view) : null;
+			height = view.getHeight();
+			linearYTop = view.getRealYTop();
+			linearYBottom = view.getRealYBottom();
+			
+			if (recycled != null && recycled.width == width) {
+				xs = recycled.xs;
+				ys = recycled.ys;
+				known = recycled.known;
+				Arrays.fill(known, false);
+			} else {
+				xs = new double[width];
+				ys = new double[width];
+				known = new boolean[width];
+			}
+			for (int i = 0; i < width; i++) {
+				xs[i] = i+pixelXLeft+0.5;
+			}
+			view.getRealX(xs, xs, 0, width);
+			
+			if (adaptive) {
+				edgeXs = new double[width + 1];
+				edgeYs = new double[width + 1];
+				edgeKnown = new boolean[width + 1];
+				for (int i = 0; i <= width; i++) {
+					edgeXs[i] = sampler.getEdgeX(i);
+				}
+			} else {
+				edgeXs = null;
+				edgeYs = null;
+				edgeKnown = null;
+			}
+		}
+		
+		/**
+		 * Copies every sample of the previous viewport that has the same x-coordinate in linear
+		 * coordinates as a sample of this one. After a translation, this is every sample except
+		 * those in the newly exposed columns.
+		 */
+		private void reuse(Viewport previous) {
+			if (previous == null) {
+				return;
+			}
+			
+			double previousPixelWidth = (previous.linearXRight - previous.linearXLeft) / previous.width;
+			double scale = (linearXRight - linearXLeft) / width / previousPixelWidth;
+			double start = (linearXLeft - previous.linearXLeft) / previousPixelWidth;
+			copyMatching(previous.ys, start + (scale - 1) / 2, scale, ys, known);
+			if (edgeYs != null && previous.edgeYs != null) {
+				copyMatching(previous.edgeYs, start, scale, edgeYs, edgeKnown);
+			}
+			
+			// Whole columns can be reused if they have only been translated and the vertical
+			// viewport they were refined for is the same.
+			long shift = Math.round(start);
+			if (sampler != null && previous.sampler != null && previous.columns != null
+					&& Math.abs(scale - 1) * width < TOLERANCE && Math.abs(start - shift) < TOLERANCE
+					&& Math.abs(shift) < width && height == previous.height
+					&& linearYTop == previous.linearYTop && linearYBottom == previous.linearYBottom) {
+				reusedColumns = previous.columns;
+				columnShift = (int)shift;
+			}
+		}
+		
+		// Copies previous[j] into values[i] and marks it as known wherever j = start + i*scale is
+		// an index of previous.
+		private static void copyMatching(double[] previous, double start, double scale, double[] values, boolean[] known) {
+			for (int i = 0; i < values.length; i++) {
+				double j = start + i*scale;
+				long index = Math.round(j);
+				if (Math.abs(j - index) < TOLERANCE && index >= 0 && index < previous.length) {
+					values[i] = previous[(int)index];
+					known[i] = true;
+				}
+			}
+		}
+		
+		private boolean matches(PlotView view, boolean adaptive) {
+			if (view == this.view) {
+				return adaptive == (sampler != null);
+			}
+			if (pixelXLeft != view.getPixelXLeft() || width != view.getWidth()
+					|| linearXLeft != view.getRealXLeft() || linearXRight != view.getRealXRight()
+					|| adaptive != (sampler != null)) {
+				return false;
+			}
+			return !adaptive || (height == view.getHeight()
+					&& linearYTop == view.getRealYTop() && linearYBottom == view.getRealYBottom());
+		}
+		
+		private ColumnSamples getSamples(double[] ys, int stride) {
+			return new ColumnSamples(pixelXLeft, width, linearXLeft, linearXRight, ys, stride);
+		}
 	}
 }
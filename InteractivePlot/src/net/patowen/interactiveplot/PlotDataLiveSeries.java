@@ -0,0 +1,275 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code PlotDataLiveSeries} plots a series of points that grows while it is being plotted, such as
+ * a stream of measurements. Points are appended by a single writer thread without ever blocking or,
+ * once the series is full, allocating. They are stored in fixed-size chunks, and chunks that fall
+ * out of the retained range are recycled for new points, so memory stays constant no matter how long
+ * the series runs. At most a fixed number of points is retained, and optionally only the points
+ * within a maximum age of the newest one.
+ * <p>
+ * The renderer reads the points without locking. Every point up to the published count is
+ * complete, and if the writer recycles a chunk that the renderer was reading, the renderer notices
+ * by the change to the retained range and reads the points again. If the writer outpaces every
+ * attempt, the columns of the last consistent read are drawn again instead, so a frame never shows
+ * points from recycled chunks. As with {@link PlotDataSeries},
+ * each pixel column is reduced to its first, last, minimum and maximum point before drawing.
+ * <p>
+ * Appending does not repaint the plot, since that would involve the event queue on every point.
+ * Instead, {@link #repaint()} should be called at the desired frame rate, such as from a
+ * {@link javax.swing.Timer}.
+ * @author Patrick Owen
+ */
+public class PlotDataLiveSeries extends PlotData {
+	// The number of points in a chunk, which must be a power of two
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	
+	// The number of points in a block, the smallest run of points with a stored minimum and maximum
+	private static final int BLOCK_SHIFT = 6;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	
+	// The number of times the renderer reads the points again if chunks are recycled while reading
+	private static final int MAX_READ_ATTEMPTS = 4;
+	
+	// Chunk n is stored at index n % ring.length() while it is retained.
+	private final AtomicReferenceArray<Chunk> ring;
+	
+	// The index of the first retained point and the number of points ever appended. The writer
+	// increases start before recycling a chunk and increases end after finishing a point.
+	private volatile long start;
+	private volatile long end;
+	
+	private volatile double maxAge;
+	
+	// Only accessed by the writer
+	private final ArrayDeque<Chunk> pool;
+	private Chunk current;
+	private double lastX;
+	
+	// The path the points are drawn with, reused by every paint
+	private final Path2D.Double path = new Path2D.Double();
+	
+	// The columns of the last read that no chunk was recycled during, only accessed while painting
+	private ColumnSamples lastColumns;
+	
+	/**
+	 * Creates an empty {@code PlotDataLiveSeries}.
+	 * @param capacity the number of newest points that are always retained. Up to one chunk more
+	 * may be retained, since points are discarded a chunk at a time.
+	 */
+	public PlotDataLiveSeries(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		ring = new AtomicReferenceArray<>((capacity + CHUNK_SIZE - 1) / CHUNK_SIZE + 1);
+		start = 0;
+		end = 0;
+		maxAge = Double.POSITIVE_INFINITY;
+		pool = new ArrayDeque<>(ring.length());
+		current = null;
+		lastX = Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Sets the maximum age of the retained points. Points whose x-coordinate is more than
+	 * {@code maxAge} below that of the newest point are discarded, a chunk at a time. By default,
+	 * points are only discarded once the capacity is exceeded.
+	 * @param maxAge the maximum age in real coordinates, or {@link Double#POSITIVE_INFINITY}
+	 */
+	public void setMaxAge(double maxAge) {
+		if (!(maxAge >= 0)) {
+			throw new IllegalArgumentException("maxAge cannot be negative");
+		}
+		this.maxAge = maxAge;
+	}
+	
+	/**
+	 * Appends a point to the series. This must only be called from one thread at a time, and it
+	 * never blocks.
+	 * @param x the x-coordinate of the point in real coordinates, which must be at least that of
+	 * the previous point
+	 * @param y the y-coordinate of the point in real coordinates
+	 */
+	public void append(double x, double y) {
+		if (!(x >= lastX)) {
+			throw new IllegalArgumentException("x must be at least the previous x-coordinate");
+		}
+		lastX = x;
+		
+		long index = end;
+		int offset = (int)index & (CHUNK_SIZE - 1);
+		if (offset == 0) {
+			startChunk(index >>> CHUNK_SHIFT);
+		}
+		
+		Chunk chunk = current;
+		chunk.xs[offset] = x;
+		chunk.ys[offset] = y;
+		int block = offset >>> BLOCK_SHIFT;
+		if ((offset & (BLOCK_SIZE - 1)) == 0) {
+			chunk.blockMin[block] = Double.POSITIVE_INFINITY;
+			chunk.blockMax[block] = Double.NEGATIVE_INFINITY;
+		}
+		if (y < chunk.blockMin[block]) chunk.blockMin[block] = y;
+		if (y > chunk.blockMax[block]) chunk.blockMax[block] = y;
+		
+		double maxAge = this.maxAge;
+		if (maxAge != Double.POSITIVE_INFINITY) {
+			discardOlderThan(x - maxAge, index >>> CHUNK_SHIFT);
+		}
+		end = index + 1;
+	}
+	
+	// Makes a chunk available for the given chunk number, discarding the oldest chunk if the ring
+	// is full.
+	private void startChunk(long chunkNumber) {
+		long firstChunk = start >>> CHUNK_SHIFT;
+		if (chunkNumber - firstChunk >= ring.length()) {
+			discardFirstChunk(firstChunk);
+		}
+		
+		Chunk chunk = pool.poll();
+		if (chunk == null) {
+			chunk = new Chunk();
+		}
+		ring.set((int)(chunkNumber % ring.length()), chunk);
+		current = chunk;
+	}
+	
+	// Discards every full chunk whose newest point is older than minX.
+	private void discardOlderThan(double minX, long currentChunk) {
+		long firstChunk = start >>> CHUNK_SHIFT;
+		while (firstChunk < currentChunk && getChunk(firstChunk).xs[CHUNK_SIZE - 1] < minX) {
+			discardFirstChunk(firstChunk);
+			firstChunk++;
+		}
+	}
+	
+	// Removes the oldest chunk from the retained range and returns it to the pool. The fence keeps
+	// the chunk from being reused before readers can see that it was discarded.
+	private void discardFirstChunk(long firstChunk) {
+		Chunk chunk = getChunk(firstChunk);
+		start = (firstChunk + 1) << CHUNK_SHIFT;
+		VarHandle.storeStoreFence();
+		pool.add(chunk);
+	}
+	
+	private Chunk getChunk(long chunkNumber) {
+		return ring.get((int)(chunkNumber % ring.length()));
+	}
+	
+	/**
+	 * Returns the number of points currently retained.
+	 */
+	public long getSize() {
+		long end = this.end;
+		return end - Math.min(start, end);
+	}
+	
+	public void drawData(Graphics2D g, PlotScale plotScale) {
+		drawData(g, plotScale, PlotQuality.FULL);
+	}
+	
+	/**
+	 * Draws the series with each point reduced to columns as wide as the
+	 * {@link PlotQuality#getEnvelopeWidth() envelope width} of the given quality. If chunks are
+	 * recycled during every attempt to read the points, the columns of the last consistent read
+	 * are drawn again, at their positions in the current plot, or nothing is drawn if there are
+	 * none.
+	 */
+	public void drawData(Graphics2D g, PlotScale plotScale, PlotQuality quality) {
+		Points points = new Points();
+		for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+			long end = this.end;
+			long start = Math.min(this.start, end);
+			if (start == end) {
+				return;
+			}
+			ColumnSamples columns = points.reduce(start, end, plotScale, quality.getEnvelopeWidth());
+			
+			// The points read are only valid if none of their chunks were recycled in the meantime.
+			VarHandle.acquireFence();
+			if (this.start <= start) {
+				lastColumns = columns;
+				break;
+			}
+		}
+		
+		if (lastColumns != null) {
+			g.setColor(Color.BLACK);
+			lastColumns.draw(g, plotScale, path);
+		}
+	}
+	
+	/**
+	 * A fixed-size run of points, along with the minimum and maximum of each block of points.
+	 */
+	private static final class Chunk {
+		private final double[] xs = new double[CHUNK_SIZE];
+		private final double[] ys = new double[CHUNK_SIZE];
+		private final double[] blockMin = new double[CHUNK_SIZE / BLOCK_SIZE];
+		private final double[] blockMax = new double[CHUNK_SIZE / BLOCK_SIZE];
+	}
+	
+	/**
+	 * The points of the series as seen by the renderer. The minimum and maximum of a range are
+	 * found by scanning the partial blocks at its ends and combining the stored extremes of the
+	 * whole blocks in between.
+	 */
+	private final class Points implements SeriesPoints {
+		public double getX(long index) {
+			return getChunk(index >>> CHUNK_SHIFT).xs[(int)index & (CHUNK_SIZE - 1)];
+		}
+		
+		public double getY(long index) {
+			return getChunk(index >>> CHUNK_SHIFT).ys[(int)index & (CHUNK_SIZE - 1)];
+		}
+		
+		public double getMinY(long from, long to) {
+			return getExtreme(from, to, true);
+		}
+		
+		public double getMaxY(long from, long to) {
+			return getExtreme(from, to, false);
+		}
+		
+		private double getExtreme(long from, long to, boolean findMin) {
+			double result = findMin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+			long firstBlock = (from + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+			long lastBlock = to >>> BLOCK_SHIFT;
+			if (firstBlock >= lastBlock) {
+				return scan(from, to, findMin, result);
+			}
+			
+			result = scan(from, firstBlock << BLOCK_SHIFT, findMin, result);
+			result = scan(lastBlock << BLOCK_SHIFT, to, findMin, result);
+			for (long block = firstBlock; block < lastBlock; block++) {
+				Chunk chunk = getChunk(block >>> (CHUNK_SHIFT - BLOCK_SHIFT));
+				int index = (int)block & (CHUNK_SIZE / BLOCK_SIZE - 1);
+				double value = findMin ? chunk.blockMin[index] : chunk.blockMax[index];
+				if (findMin ? value < result : value > result) {
+					result = value;
+				}
+			}
+			return result;
+		}
+		
+		private double scan(long from, long to, boolean findMin, double result) {
+			for (long i = from; i < to; i++) {
+				double value = getY(i);
+				if (findMin ? value < result : value > result) {
+					result = value;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@code PlotDataScatter} plots a large cloud of points as a density map. Instead of drawing each
+ * point, the points are counted in every pixel, and the counts are mapped to colors and drawn as a
+ * single image, so the cost of drawing depends on the number of points and pixels rather than on
+ * the number of shapes drawn. Counting is split among the threads of a {@link ForkJoinPool}. Each
+ * thread counts into a raster that no other thread is using at the same time, so there are only
+ * as many rasters as threads counting at once, and the rasters are added together at the end.
+ * @author Patrick Owen
+ */
+public class PlotDataScatter extends PlotData {
+	// The smallest number of points a single task counts without splitting
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
+	
+	private Object lock = new Object();
+	
+	// Guarded by lock. Both arrays have the same length.
+	private double[] xs;
+	private double[] ys;
+	private ForkJoinPool pool;
+	private Scaling scaling;
+	private Color lowColor;
+	private Color highColor;
+	
+	// Incremented whenever the image needs to be drawn again, guarded by lock
+	private long version;
+	
+	// The image of the last paint, which is reused if nothing changed. The bounds are linear, so
+	// the axis scales they are in are part of what must not change. These are only accessed while
+	// painting.
+	private BufferedImage image;
+	private long imageVersion;
+	private double imageXLeft, imageXRight, imageYTop, imageYBottom;
+	private AxisScale imageXAxisScale, imageYAxisScale;
+	
+	/**
+	 * How counts are mapped to colors.
+	 */
+	public enum Scaling {
+		/**
+		 * The color is proportional to the count.
+		 */
+		LINEAR,
+		
+		/**
+		 * The color is proportional to the logarithm of the count, which shows sparse regions
+		 * alongside dense ones.
+		 */
+		LOGARITHMIC
+	}
+	
+	public PlotDataScatter() {
+		xs = new double[0];
+		ys = new double[0];
+		pool = ForkJoinPool.commonPool();
+		scaling = Scaling.LOGARITHMIC;
+		lowColor = new Color(200, 210, 240);
+		highColor = Color.BLACK;
+		version = 0;
+		imageVersion = -1;
+	}
+	
+	/**
+	 * Sets the points to plot, which can be in any order. The arrays are used directly rather than
+	 * copied, so if they are modified afterward, this method should be called again.
+	 * @param xs the x-coordinates of the points in real coordinates
+	 * @param ys the y-coordinates of the points in real coordinates
+	 */
+	public void setData(double[] xs, double[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("xs and ys must have the same length");
+		}
+		synchronized (lock) {
+			this.xs = xs;
+			this.ys = ys;
+			version++;
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the pool used to count the points on several threads at once. If {@code pool} is
+	 * {@code null}, the points are counted on the painting thread. The default is
+	 * {@link ForkJoinPool#commonPool()}.
+	 * @param pool the pool to count the points in, or {@code null}
+	 */
+	public void setForkJoinPool(ForkJoinPool pool) {
+		synchronized (lock) {
+			this.pool = pool;
+		}
+	}
+	
+	/**
+	 * Sets how the number of points in a pixel is mapped to its color. The default is
+	 * {@link Scaling#LOGARITHMIC}.
+	 * @param scaling the mapping from counts to colors
+	 */
+	public void setScaling(Scaling scaling) {
+		if (scaling == null) {
+			throw new IllegalArgumentException("scaling cannot be null");
+		}
+		synchronized (lock) {
+			this.scaling = scaling;
+			version++;
+		}
+		repaint();
+	}
+	
+	/**
+	 * Sets the colors of the pixels with the fewest and the most points. Colors in between are
+	 * interpolated, and pixels without points are left transparent.
+	 * @param lowColor the color of a pixel with a single point
+	 * @param highColor the color of the pixel with the most points
+	 */
+	public void setColors(Color lowColor, Color highColor) {
+		if (lowColor == null || highColor == null) {
+			throw new IllegalArgumentException("colors cannot be null");
+		}
+		synchronized (lock) {
+			this.lowColor = lowColor;
+			this.highColor = highColor;
+			version++;
+		}
+		repaint();
+	}
+	
+	public void drawData(Graphics2D g, PlotScale plotScale) {
+		double[] xs, ys;
+		ForkJoinPool pool;
+		Scaling scaling;
+		Color lowColor, highColor;
+		long version;
+		synchronized (lock) {
+			xs = this.xs;
+			ys = this.ys;
+			pool = this.pool;
+			scaling = this.scaling;
+			lowColor = this.lowColor;
+			highColor = this.highColor;
+			version = this.version;
+		}
+		
+		int width = plotScale.getWidth(), height = plotScale.getHeight();
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			imageVersion = -1;
+		}
+		
+		if (imageVersion != version || imageXLeft != plotScale.getRealXLeft()
+				|| imageXRight != plotScale.getRealXRight() || imageYTop != plotScale.getRealYTop()
+				|| imageYBottom != plotScale.getRealYBottom() || imageXAxisScale != plotScale.getXAxisScale()
+				|| imageYAxisScale != plotScale.getYAxisScale()) {
+			Raster raster = new Raster(plotScale);
+			ConcurrentLinkedQueue<int[]> rasters = new ConcurrentLinkedQueue<>();
+			CountTask task = new CountTask(raster, rasters, xs, ys, 0, xs.length,
+					pool == null ? xs.length : Math.max(MIN_CHUNK_SIZE, xs.length / pool.getParallelism()));
+			if (pool == null) {
+				task.compute();
+			} else {
+				pool.invoke(task);
+			}
+			int[] counts = merge(rasters);
+			
+			int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+			colorize(counts, pixels, scaling, lowColor, highColor);
+			
+			imageVersion = version;
+			imageXLeft = plotScale.getRealXLeft();
+			imageXRight = plotScale.getRealXRight();
+			imageYTop = plotScale.getRealYTop();
+			imageYBottom = plotScale.getRealYBottom();
+			imageXAxisScale = plotScale.getXAxisScale();
+			imageYAxisScale = plotScale.getYAxisScale();
+		}
+		
+		g.drawImage(image, plotScale.getPixelXLeft(), plotScale.getPixelYTop(), null);
+	}
+	
+	// Adds the counts of every raster into the first one and returns it.
+	private static int[] merge(ConcurrentLinkedQueue<int[]> rasters) {
+		int[] counts = rasters.poll();
+		for (int[] other = rasters.poll(); other != null; other = rasters.poll()) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += other[i];
+			}
+		}
+		return counts;
+	}
+	
+	// Maps every count to a color, leaving pixels without points transparent.
+	private static void colorize(int[] counts, int[] pixels, Scaling scaling, Color lowColor, Color highColor) {
+		int maxCount = 0;
+		for (int count : counts) {
+			maxCount = Math.max(maxCount, count);
+		}
+		
+		// The colors of every count are precomputed into a palette.
+		int[] palette = new int[256];
+		for (int i = 0; i < palette.length; i++) {
+			double t = i / (palette.length - 1.0);
+			palette[i] = interpolate(lowColor.getRGB(), highColor.getRGB(), t);
+		}
+		
+		double scale = maxCount <= 1 ? 0 : (palette.length - 1)
+				/ (scaling == Scaling.LOGARITHMIC ? Math.log(maxCount) : maxCount - 1);
+		for (int i = 0; i < counts.length; i++) {
+			int count = counts[i];
+			if (count == 0) {
+				pixels[i] = 0;
+			} else if (scaling == Scaling.LOGARITHMIC) {
+				pixels[i] = palette[(int)(Math.log(count) * scale)];
+			} else {
+				pixels[i] = palette[(int)((count - 1) * scale)];
+			}
+		}
+	}
+	
+	// Interpolates each channel of two ARGB colors.
+	private static int interpolate(int from, int to, double t) {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int a = (from >>> shift) & 0xff, b = (to >>> shift) & 0xff;
+			result |= (int)Math.round(a + (b - a) * t) << shift;
+		}
+		return result;
+	}
+	
+	/**
+	 * The mapping from points in real coordinates to the pixels of the plot.
+	 */
+	private static final class Raster {
+		private final AxisScale xAxisScale;
+		private final AxisScale yAxisScale;
+		private final int width;
+		private final int height;
+		
+		// A point at linear coordinates (x, y) is in column x*xScale + xOffset and row
+		// y*yScale + yOffset, rounded down.
+		private final double xScale, xOffset;
+		private final double yScale, yOffset;
+		
+		private Raster(PlotScale plotScale) {
+			xAxisScale = plotScale.getXAxisScale();
+			yAxisScale = plotScale.getYAxisScale();
+			width = plotScale.getWidth();
+			height = plotScale.getHeight();
+			
+			xScale = width / (plotScale.getRealXRight() - plotScale.getRealXLeft());
+			xOffset = -plotScale.getRealXLeft() * xScale;
+			yScale = height / (plotScale.getRealYBottom() - plotScale.getRealYTop());
+			yOffset = -plotScale.getRealYTop() * yScale;
+		}
+	}
+	
+	/**
+	 * Counts the points in a range of indices, splitting the range among several tasks if it is
+	 * large. Each task takes a raster that no other task is counting into from the queue, or
+	 * creates one if there is none, and puts it back once it is done, so a raster is only created
+	 * for each thread that counts at the same time as the others.
+	 */
+	private static final class CountTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final Raster raster;
+		private final ConcurrentLinkedQueue<int[]> rasters;
+		private final double[] xs;
+		private final double[] ys;
+		private final int start;
+		private final int end;
+		private final int chunkSize;
+		
+		private CountTask(Raster raster, ConcurrentLinkedQueue<int[]> rasters, double[] xs, double[] ys,
+				int start, int end, int chunkSize) {
+			this.raster = raster;
+			this.rasters = rasters;
+			this.xs = xs;
+			this.ys = ys;
+			this.start = start;
+			this.end = end;
+			this.chunkSize = chunkSize;
+		}
+		
+		protected void compute() {
+			if (end - start > chunkSize) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new CountTask(raster, rasters, xs, ys, start, middle, chunkSize),
+						new CountTask(raster, rasters, xs, ys, middle, end, chunkSize));
+				return;
+			}
+			
+			Raster r = raster;
+			int[] counts = rasters.poll();
+			if (counts == null) {
+				counts = new int[r.width * r.height];
+			}
+			for (int i = start; i < end; i++) {
+				double column = Math.floor(r.xAxisScale.getLinear(xs[i]) * r.xScale + r.xOffset);
+				double row = Math.floor(r.yAxisScale.getLinear(ys[i]) * r.yScale + r.yOffset);
+				if (column >= 0 && column < r.width && row >= 0 && row < r.height) {
+					counts[(int)row * r.width + (int)column]++;
+				}
+			}
+			rasters.add(counts);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+
+/**
+ * {@code PlotDataSeries} plots a series of measured points connected by lines. The points are held
+ * in two primitive arrays of x and y-coordinates, sorted by x-coordinate, so that series of tens of
+ * millions of points can be plotted. Each pixel column is reduced to its first, last, minimum and
+ * maximum points before drawing, which looks the same as drawing every line but makes the
+ * drawing work depend only on the width of the plot. The minimum and maximum of each column are
+ * found through a {@link MinMaxPyramid} built over the y-coordinates, so even plotting every point
+ * of a huge series takes time logarithmic in the number of points per column.
+ * @author Patrick Owen
+ */
+public class PlotDataSeries extends PlotData {
+	private Object lock = new Object();
+	
+	// Guarded by lock. Both arrays have the same length, xs is sorted, and the pyramid indexes ys.
+	private double[] xs;
+	private double[] ys;
+	private MinMaxPyramid pyramid;
+	
+	// The path the points are drawn with, reused by every paint
+	private final Path2D.Double path = new Path2D.Double();
+	
+	public PlotDataSeries() {
+		xs = new double[0];
+		ys = new double[0];
+		pyramid = new MinMaxPyramid(ys);
+	}
+	
+	/**
+	 * Sets the points to plot. The arrays are used directly rather than copied, and the
+	 * y-coordinates must only be modified afterward through {@link #setY}. Points with a
+	 * y-coordinate of NaN are not drawn.
+	 * @param xs the x-coordinates of the points in real coordinates, sorted in ascending order
+	 * @param ys the y-coordinates of the points in real coordinates
+	 */
+	public void setData(double[] xs, double[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("xs and ys must have the same length");
+		}
+		for (int i = 1; i < xs.length; i++) {
+			if (!(xs[i] >= xs[i-1])) {
+				throw new IllegalArgumentException("xs must be sorted in ascending order");
+			}
+		}
+		
+		MinMaxPyramid pyramid = new MinMaxPyramid(ys);
+		synchronized (lock) {
+			this.xs = xs;
+			this.ys = ys;
+			this.pyramid = pyramid;
+		}
+		repaint();
+	}
+	
+	/**
+	 * Changes the y-coordinate of a single point, such as to correct a measurement. This takes
+	 * time logarithmic in the number of points.
+	 * @param index the index of the point in the arrays passed to {@link #setData}
+	 * @param y the new y-coordinate of the point in real coordinates
+	 */
+	public void setY(int index, double y) {
+		synchronized (lock) {
+			if (index < 0 || index >= ys.length) {
+				throw new IllegalArgumentException("index out of range");
+			}
+			pyramid.set(index, y);
+		}
+		repaint();
+	}
+	
+	public void drawData(Graphics2D g, PlotScale plotScale) {
+		drawData(g, plotScale, PlotQuality.FULL);
+	}
+	
+	/**
+	 * Draws the series with each point reduced to columns as wide as the
+	 * {@link PlotQuality#getEnvelopeWidth() envelope width} of the given quality.
+	 */
+	public void drawData(Graphics2D g, PlotScale plotScale, PlotQuality quality) {
+		ColumnSamples columns;
+		synchronized (lock) {
+			if (xs.length == 0) {
+				return;
+			}
+			columns = new ArrayPoints(xs, ys, pyramid).reduce(0, xs.length, plotScale, quality.getEnvelopeWidth());
+		}
+		
+		g.setColor(Color.BLACK);
+		columns.draw(g, plotScale, path);
+	}
+	
+	/**
+	 * The points of the series, with the minimum and maximum found through the pyramid.
+	 */
+	private static final class ArrayPoints implements SeriesPoints {
+		private final double[] xs;
+		private final double[] ys;
+		private final MinMaxPyramid pyramid;
+		
+		private ArrayPoints(double[] xs, double[] ys, MinMaxPyramid pyramid) {
+			this.xs = xs;
+			this.ys = ys;
+			this.pyramid = pyramid;
+		}
+		
+		public double getX(long index) {
+			return xs[(int)index];
+		}
+		
+		public double getY(long index) {
+			return ys[(int)index];
+		}
+		
+		public double getMinY(long from, long to) {
+			return pyramid.getMin((int)from, (int)to);
+		}
+		
+		public double getMaxY(long from, long to) {
+			return pyramid.getMax((int)from, (int)to);
+		}
+	}
+}
@@ -1,7 +1,34 @@
 package net.patowen.interactiveplot;
 
-
+/**
+ * A function that can be plotted with {@link PlotDataFunction}. Both the input and output of the
+ * function are in real coordinates. If the function is evaluated in parallel, as set by
+ * {@link PlotDataFunction#setForkJoinPool}, both methods may be called from several threads at
+ * once and must be thread-safe.
+ * @author Patrick Owen
+ */
+@FunctionalInterface
 public interface PlotFunction
-{	
+{
+	/**
+	 * Returns the value of the function at the given x-coordinate.
+	 * @param x the x-coordinate in real coordinates
+	 */
 	public double getY(double x);
+	
+	/**
+	 * Evaluates the function at several x-coordinates at once, storing {@code ys[i] = getY(xs[i])}
+	 * for every index {@code i} in the given range. Functions with a high overhead per call, such
+	 * as those backed by native code or lookup tables, can override this method to evaluate the
+	 * whole range at once.
+	 * @param xs the x-coordinates in real coordinates
+	 * @param ys the array to store the values of the function in
+	 * @param offset the first index to evaluate
+	 * @param length the number of indices to evaluate
+	 */
+	public default void getY(double[] xs, double[] ys, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			ys[i] = getY(xs[i]);
+		}
+	}
 }
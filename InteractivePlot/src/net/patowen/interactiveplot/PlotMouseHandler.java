@@ -1,25 +1,32 @@
 package net.patowen.interactiveplot;
 
-import java.awt.Component;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 
 /**
  * This provides a convenient way to define how the mouse can interact with the plot.
+ * <p>
+ * Drag and wheel events are not passed on as they arrive. Instead, they are held until the plot is
+ * next painted, so that the view changes at most once per frame however fast the mouse reports
+ * its movement. At that point, only the latest drag event is passed to {@link #mouseDragged}, and
+ * the wheel events are merged into one whose rotation is their sum and whose location is that of
+ * the latest one. Pressing or releasing a button passes on any held events first, so the order of
+ * events is preserved.
  * @author Patrick Owen
  */
 public class PlotMouseHandler {
-	private Component parent;
+	private InteractivePlot parent;
 	
-	void setParent(Component parent) {
+	void setParent(InteractivePlot parent) {
 		this.parent = parent;
 	}
 	
 	/**
-	 * Refreshes the graph to handle the view changing.
+	 * Refreshes the graph to handle the view changing. This does nothing when called while the
+	 * plot is being painted, since the change is then already part of the frame being painted.
 	 */
 	protected void repaint() {
-		parent.repaint();
+		parent.repaintForInput();
 	}
 	
 	/**
@@ -0,0 +1,84 @@
+package net.patowen.interactiveplot;
+
+/**
+ * Describes how much detail a plot should be drawn with. While the user is panning or zooming a
+ * plot with a frame budget, the plot is drawn at lower quality whenever drawing takes longer than
+ * the budget allows, and at full quality again once the user stops. {@link PlotData} subclasses
+ * receive the quality in {@link PlotData#drawData(java.awt.Graphics2D, PlotScale, PlotQuality)}
+ * and may trade detail for speed as it suggests. Every setting is only a hint.
+ * @author Patrick Owen
+ */
+public final class PlotQuality {
+	/**
+	 * The quality a plot is drawn with when it is not limited by a frame budget.
+	 */
+	public static final PlotQuality FULL = new PlotQuality(0, 1, 1, true, 1);
+	
+	// The qualities a frame budget steps through, from highest to lowest. Antialiasing goes first,
+	// since it costs the most for the least visible detail.
+	static final PlotQuality[] LEVELS = {
+			FULL,
+			new PlotQuality(1, 1, 1, false, 1),
+			new PlotQuality(2, 2, 2, false, 1.5),
+			new PlotQuality(3, 4, 4, false, 2),
+			new PlotQuality(4, 8, 8, false, 2),
+	};
+	
+	// The index of this quality in LEVELS
+	private final int level;
+	
+	private final int sampleStride;
+	private final int envelopeWidth;
+	private final boolean antialiased;
+	private final double labelSpacing;
+	
+	private PlotQuality(int level, int sampleStride, int envelopeWidth, boolean antialiased, double labelSpacing) {
+		this.level = level;
+		this.sampleStride = sampleStride;
+		this.envelopeWidth = envelopeWidth;
+		this.antialiased = antialiased;
+		this.labelSpacing = labelSpacing;
+	}
+	
+	/**
+	 * Returns whether this is {@link #FULL full quality}.
+	 */
+	public boolean isFull() {
+		return this == FULL;
+	}
+	
+	int getLevel() {
+		return level;
+	}
+	
+	/**
+	 * Returns the number of pixel columns between the columns at which a function is sampled,
+	 * which is a power of two.
+	 */
+	public int getSampleStride() {
+		return sampleStride;
+	}
+	
+	/**
+	 * Returns the width in pixels of the columns that measured data is reduced to before drawing,
+	 * which is a power of two.
+	 */
+	public int getEnvelopeWidth() {
+		return envelopeWidth;
+	}
+	
+	/**
+	 * Returns whether lines and shapes should be antialiased if the plot asks for it. If not, the
+	 * graphics context passed to {@link PlotData} has antialiasing turned off.
+	 */
+	public boolean isAntialiased() {
+		return antialiased;
+	}
+	
+	/**
+	 * Returns the factor by which the spacing between the labels of each axis is increased.
+	 */
+	public double getLabelSpacing() {
+		return labelSpacing;
+	}
+}
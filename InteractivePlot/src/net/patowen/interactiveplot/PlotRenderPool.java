@@ -0,0 +1,85 @@
+package net.patowen.interactiveplot;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders many plots in parallel with a fixed number of threads, such as to generate thumbnails in
+ * bulk. Each {@link PlotRenderer} is rendered on whichever thread is free, so plots rendered at
+ * the same time must not share their style, data or constraints. This class is thread-safe, and
+ * its threads do not keep the virtual machine running.
+ * @author Patrick Owen
+ */
+public final class PlotRenderPool {
+	private final ExecutorService executor;
+	
+	/**
+	 * Creates a {@code PlotRenderPool} with one thread per available processor.
+	 */
+	public PlotRenderPool() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a {@code PlotRenderPool} with the given number of threads.
+	 * @param threads the number of plots rendered at once
+	 */
+	public PlotRenderPool(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive");
+		}
+		executor = Executors.newFixedThreadPool(threads, new RenderThreadFactory());
+	}
+	
+	/**
+	 * Renders the plot into a new image with the given size in pixels, as
+	 * {@link PlotRenderer#render(int, int)} does. The style of the renderer must not be used by
+	 * any other renderer or plot, since it keeps the scale and labels of the plot it paints,
+	 * including labels kept from its last paint.
+	 * @return the image once it is rendered
+	 */
+	public Future<BufferedImage> render(PlotRenderer renderer, int width, int height) {
+		return executor.submit(() -> renderer.render(width, height));
+	}
+	
+	/**
+	 * Renders the plot over the given image, as {@link PlotRenderer#render(BufferedImage)} does.
+	 * The image must not be used until it is rendered, and the style of the renderer must not be
+	 * used by any other renderer or plot.
+	 * @return the same image once it is rendered
+	 */
+	public Future<BufferedImage> render(PlotRenderer renderer, BufferedImage image) {
+		return executor.submit(() -> {
+			renderer.render(image);
+			return image;
+		});
+	}
+	
+	/**
+	 * Stops the pool once the plots already submitted are rendered. No more plots can be submitted
+	 * afterward.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	/**
+	 * Creates the daemon threads plots are rendered in.
+	 */
+	private static final class RenderThreadFactory implements ThreadFactory {
+		private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+		
+		private final int pool = POOL_COUNT.incrementAndGet();
+		private final AtomicInteger threadNumber = new AtomicInteger();
+		
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "PlotRenderPool-" + pool + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package net.patowen.interactiveplot;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Draws a plot into an image without a Swing component, such as to generate images for reports on
+ * a server running with {@code java.awt.headless=true}. The plot looks the same as an
+ * {@link InteractivePlot} of the same size showing the same bounds, but nothing involves the event
+ * dispatch thread, so any thread can render.
+ * <p>
+ * A {@code PlotRenderer} renders one plot at a time, and rendering the same renderer from several
+ * threads makes them take turns. Renderers can render in parallel as long as they do not share
+ * their style, data or constraints, all of which hold state while drawing. The data should sample
+ * while painting, since a plot rendered to an image has nothing to repaint once background
+ * sampling finishes. To render many plots in parallel, see {@link PlotRenderPool}.
+ * @author Patrick Owen
+ */
+public final class PlotRenderer {
+	private final PlotStyle axisStyle;
+	private final PlotConstraints constraints;
+	private final PlotBounds bounds;
+	private final PlotData plotData;
+	private final AxisScale xAxisScale;
+	private final AxisScale yAxisScale;
+	
+	/**
+	 * Creates a {@code PlotRenderer} with the given settings. The style, data and constraints of
+	 * the settings are used directly rather than copied, so before the same settings are used to
+	 * create another renderer that may render at the same time, they should be given a new style.
+	 * @param settings the desired properties of the plot.
+	 */
+	public PlotRenderer(Settings settings) {
+		if (settings.plotData == null) {
+			throw new IllegalArgumentException("No plot data set.");
+		}
+		axisStyle = settings.axisStyle;
+		constraints = settings.constraints;
+		bounds = new PlotBounds(settings.bounds);
+		plotData = settings.plotData;
+		xAxisScale = settings.xAxisScale;
+		yAxisScale = settings.yAxisScale;
+	}
+	
+	/**
+	 * Renders the plot into a new image with the given size in pixels, including the margins of
+	 * the style. Text is antialiased.
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @return an image with a transparent background outside the plot
+	 */
+	public BufferedImage render(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		render(image);
+		return image;
+	}
+	
+	/**
+	 * Renders the plot over the given image, sized to fill all of it. Text is antialiased. Reusing the
+	 * same image for several plots avoids allocating one for each, but the image must be cleared
+	 * in between unless the style fills everything it draws behind.
+	 * @param image the image to draw in
+	 */
+	public void render(BufferedImage image) {
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			render(g, image.getWidth(), image.getHeight());
+		} finally {
+			g.dispose();
+		}
+	}
+	
+	/**
+	 * Renders the plot as an SVG document with the given size in CSS pixels, including the margins
+	 * of the style. The document is written as the plot is drawn, so the memory used does not
+	 * depend on the amount of data, and geometry is rounded to dots of the given resolution, so the
+	 * size of the document depends on the detail visible at that resolution. The data is sampled
+	 * and decimated in columns of one dot rather than one CSS pixel, so a high resolution shows
+	 * more detail, while the style, labels and line widths keep their size in CSS pixels. See
+	 * {@link SvgGraphics2D}.
+	 * @param out the writer to write the document to, which is flushed but not closed
+	 * @param width the width of the document
+	 * @param height the height of the document
+	 * @param dpi the resolution geometry is rounded to, in dots per inch
+	 * @throws IOException if the document could not be written
+	 */
+	public void renderSvg(Writer out, int width, int height, double dpi) throws IOException {
+		SvgGraphics2D g = new SvgGraphics2D(out, width, height, dpi);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		render(g, width, height, dpi / 96);
+		g.finish();
+	}
+	
+	/**
+	 * Renders the plot as an SVG document encoded in UTF-8, as
+	 * {@link #renderSvg(Writer, int, int, double)} does.
+	 * @param out the stream to write the document to, which is flushed but not closed
+	 */
+	public void renderSvg(OutputStream out, int width, int height, double dpi) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		renderSvg(writer, width, height, dpi);
+		writer.flush();
+	}
+	
+	/**
+	 * Renders the plot with the given graphics context, which determines the font and rendering
+	 * hints. The top-left corner of the plot, including its margins, is at the origin.
+	 * @param g the graphics context
+	 * @param width the width of the plot in the units of {@code g}, including the margins
+	 * @param height the height of the plot in the units of {@code g}, including the margins
+	 */
+	public void render(Graphics2D g, int width, int height) {
+		render(g, width, height, 1);
+	}
+	
+	// Renders the plot with the data drawn in a grid with the given number of dots per pixel.
+	private synchronized void render(Graphics2D g, int width, int height, double dotsPerPixel) {
+		PlotScale plotScale = PlotScale.getBuilder()
+				.setBounds(bounds)
+				.setSize(Math.max(2, width-axisStyle.getHorizontalMargin()),
+						Math.max(2, height-axisStyle.getVerticalMargin()))
+				.setConstraints(constraints)
+				.setAxisScales(xAxisScale, yAxisScale)
+				.build();
+		
+		AffineTransform savedTransform = g.getTransform();
+		g.translate(axisStyle.getLeftMargin(), axisStyle.getTopMargin());
+		
+		axisStyle.preparePainting(plotScale, PlotQuality.FULL);
+		axisStyle.paintBackground(g);
+		
+		Shape savedClip = g.getClip();
+		g.clipRect(0, 0, plotScale.getWidth(), plotScale.getHeight());
+		if (dotsPerPixel == 1) {
+			plotData.drawData(g, plotScale);
+		} else {
+			drawData(g, plotScale, dotsPerPixel);
+		}
+		g.setClip(savedClip);
+		
+		axisStyle.paintForeground(g);
+		
+		g.setTransform(savedTransform);
+	}
+	
+	// Draws the data with a plot scale that has the given number of dots per pixel and the same
+	// edges as the given one, so that data decimated into columns keeps the detail of the output.
+	// The stroke is widened so that lines are as wide as they would be otherwise.
+	private void drawData(Graphics2D g, PlotScale plotScale, double dotsPerPixel) {
+		int width = plotScale.getWidth();
+		int height = plotScale.getHeight();
+		int dotWidth = (int)Math.max(2, Math.round(width * dotsPerPixel));
+		int dotHeight = (int)Math.max(2, Math.round(height * dotsPerPixel));
+		double dotX = (double)width / dotWidth;
+		double dotY = (double)height / dotHeight;
+		
+		// The bounds of a plot scale are at the centers of its boundary dots.
+		PlotScale dotScale = PlotScale.getBuilder()
+				.setBounds(new PlotBounds(
+						plotScale.getRealX(dotX / 2), plotScale.getRealX(width - dotX / 2),
+						plotScale.getRealY(dotY / 2), plotScale.getRealY(height - dotY / 2)))
+				.setSize(dotWidth, dotHeight)
+				.setConstraints(new PlotConstraints())
+				.setAxisScales(xAxisScale, yAxisScale)
+				.build();
+		
+		AffineTransform savedTransform = g.getTransform();
+		Stroke savedStroke = g.getStroke();
+		g.scale(dotX, dotY);
+		g.setStroke(new BasicStroke((float)dotsPerPixel));
+		plotData.drawData(g, dotScale);
+		g.setStroke(savedStroke);
+		g.setTransform(savedTransform);
+	}
+	
+	/**
+	 * Contains the settings that a {@code PlotRenderer} is created with. These are the same as the
+	 * settings of an {@link InteractivePlot} that concern its appearance.
+	 * @author Patrick Owen
+	 */
+	public static final class Settings {
+		private PlotStyle axisStyle;
+		private PlotConstraints constraints;
+		private PlotBounds bounds;
+		private PlotData plotData;
+		private AxisScale xAxisScale;
+		private AxisScale yAxisScale;
+		
+		/**
+		 * Constructs a {@code PlotRenderer.Settings} object with default settings. Every setting
+		 * has a default except for the plot data, which must be set manually.
+		 */
+		public Settings() {
+			axisStyle = new BasicPlotStyle();
+			constraints = new PlotConstraints();
+			bounds = new PlotBounds(0, 1, 0, 1);
+			plotData = null;
+			xAxisScale = new LinearAxisScale();
+			yAxisScale = new LinearAxisScale();
+		}
+		
+		/**
+		 * Sets the axis style, which determines the look and feel of the plot. A style keeps the
+		 * scale and labels of the plot it paints, including labels kept from its last paint, so
+		 * each renderer needs its own style, which must not be shared with any other renderer or
+		 * plot.
+		 */
+		public void setAxisStyle(PlotStyle plotStyle) {
+			if (plotStyle == null) {
+				throw new IllegalArgumentException("plotStyle cannot be null");
+			}
+			this.axisStyle = plotStyle;
+		}
+		
+		/**
+		 * Sets the plot constraints, which limit the bounds that can be shown.
+		 */
+		public void setPlotConstraints(PlotConstraints constraints) {
+			if (constraints == null) {
+				throw new IllegalArgumentException("constraints cannot be null");
+			}
+			this.constraints = constraints;
+		}
+		
+		/**
+		 * Sets the coordinates of the boundaries of the plot in real coordinates.
+		 * @param xLeft the x-coordinate of the left edge of the plot
+		 * @param xRight the x-coordinate of the right edge of the plot
+		 * @param yTop the y-coordinate of the top edge of the plot
+		 * @param yBottom the y-coordinate of the bottom edge of the plot
+		 */
+		public void setBounds(double xLeft, double xRight, double yTop, double yBottom) {
+			this.bounds = new PlotBounds(xLeft, xRight, yTop, yBottom);
+		}
+		
+		/**
+		 * Sets the plot data, which determines the contents of the plot. This is a required
+		 * setting, as it has no default.
+		 */
+		public void setPlotData(PlotData plotData) {
+			if (plotData == null) {
+				throw new IllegalArgumentException("plotData cannot be null");
+			}
+			this.plotData = plotData;
+		}
+		
+		/**
+		 * Sets the scale and labeling schema of the x-axis.
+		 */
+		public void setXAxisScale(AxisScale xAxisScale) {
+			if (xAxisScale == null) {
+				throw new IllegalArgumentException("xAxisScale cannot be null");
+			}
+			this.xAxisScale = xAxisScale;
+		}
+		
+		/**
+		 * Sets the scale and labeling schema of the y-axis.
+		 */
+		public void setYAxisScale(AxisScale yAxisScale) {
+			if (yAxisScale == null) {
+				throw new IllegalArgumentException("yAxisScale cannot be null");
+			}
+			this.yAxisScale = yAxisScale;
+		}
+	}
+}
@@ -24,6 +24,12 @@ public final class PlotScale {
 	// very edge of the graph.
 	private PlotBounds edgeBounds;
 	
+	// Incremented whenever the size or bounds change
+	private long version;
+	
+	// The snapshot of the current size and bounds, which every conversion goes through
+	private volatile PlotView view;
+	
 	static Builder getBuilder() {
 		return new Builder();
 	}
@@ -134,6 +140,8 @@ public final class PlotScale {
 	private void setEdgeBounds() {
 		setXEdgeBounds();
 		setYEdgeBounds();
+		version++;
+		view = new PlotView(gWidth, gHeight, edgeBounds, xAxisScale, yAxisScale, version);
 	}
 	
 	private void applyConstraints() {
@@ -145,98 +153,124 @@ public final class PlotScale {
 	 * Returns the width of the plot window in pixels.
 	 */
 	public int getWidth() {
-		return gWidth;
+		return view.getWidth();
 	}
 	
 	/**
 	 * Returns the height of the plot window in pixels.
 	 */
 	public int getHeight() {
-		return gHeight;
+		return view.getHeight();
+	}
+	
+	AxisScale getXAxisScale() {
+		return xAxisScale;
+	}
+	
+	AxisScale getYAxisScale() {
+		return yAxisScale;
+	}
+	
+	/**
+	 * Returns an immutable snapshot of the current size, bounds and axis scales of the plot. A new
+	 * snapshot is published atomically whenever any of them change, so other threads can keep
+	 * converting coordinates with the snapshot they have while the plot is moved, and compare its
+	 * version with that of the latest one to tell whether their results are out of date.
+	 */
+	public PlotView getView() {
+		return view;
+	}
+	
+	/**
+	 * Returns a number that changes whenever the size or bounds of the plot change, so that
+	 * anything drawn for an earlier version can be recognized as out of date.
+	 */
+	long getVersion() {
+		return view.getVersion();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the left edge of the plot window in screen coordinates.
 	 */
 	public double getScreenXLeft() {
-		return 0;
+		return view.getScreenXLeft();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the right edge of the plot window in screen coordinates.
 	 */
 	public double getScreenXRight() {
-		return gWidth;
+		return view.getScreenXRight();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the top edge of the plot window in screen coordinates.
 	 */
 	public double getScreenYTop() {
-		return 0;
+		return view.getScreenYTop();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the bottom edge of the plot window in screen coordinates.
 	 */
 	public double getScreenYBottom() {
-		return gHeight;
+		return view.getScreenYBottom();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the leftmost pixels of the plot window in pixel coordinates.
 	 */
 	public int getPixelXLeft() {
-		return 0;
+		return view.getPixelXLeft();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the rightmost pixels of the plot window in pixel coordinates.
 	 */
 	public int getPixelXRight() {
-		return gWidth-1;
+		return view.getPixelXRight();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the topmost pixels of the plot window in pixel coordinates.
 	 */
 	public int getPixelYTop() {
-		return 0;
+		return view.getPixelYTop();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the bottommost pixels of the plot window in pixel coordinates.
 	 */
 	public int getPixelYBottom() {
-		return gHeight-1;
+		return view.getPixelYBottom();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the left edge of the plot window in real coordinates.
 	 */
 	public double getRealXLeft() {
-		return edgeBounds.getXLeft();
+		return view.getRealXLeft();
 	}
 	
 	/**
 	 * Returns the x-coordinate of the right edge of the plot window in real coordinates.
 	 */
 	public double getRealXRight() {
-		return edgeBounds.getXRight();
+		return view.getRealXRight();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the top edge of the plot window in real coordinates.
 	 */
 	public double getRealYTop() {
-		return edgeBounds.getYTop();
+		return view.getRealYTop();
 	}
 	
 	/**
 	 * Returns the y-coordinate of the bottom edge of the plot window in real coordinates.
 	 */
 	public double getRealYBottom() {
-		return edgeBounds.getYBottom();
+		return view.getRealYBottom();
 	}
 	
 	/**
@@ -246,7 +280,21 @@ public final class PlotScale {
 	 */
 	public double getScreenX(double realX)
 	{
-		return (xAxisScale.getLinear(realX)-edgeBounds.getXLeft())/(edgeBounds.getXRight()-edgeBounds.getXLeft())*gWidth;
+		return view.getScreenX(realX);
+	}
+	
+	/**
+	 * Converts the given x-coordinates from real coordinates to screen coordinates, in a single
+	 * pass over the array for each step of the conversion.
+	 * @param realX the x-coordinates in real coordinates
+	 * @param screenX the array to store the x-coordinates in screen coordinates in, which may be
+	 * the same as {@code realX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getScreenX(double[] realX, double[] screenX, int start, int end)
+	{
+		view.getScreenX(realX, screenX, start, end);
 	}
 	
 	/**
@@ -256,7 +304,21 @@ public final class PlotScale {
 	 */
 	public double getScreenY(double realY)
 	{
-		return (yAxisScale.getLinear(realY)-edgeBounds.getYTop())/(edgeBounds.getYBottom()-edgeBounds.getYTop())*gHeight;
+		return view.getScreenY(realY);
+	}
+	
+	/**
+	 * Converts the given y-coordinates from real coordinates to screen coordinates, in a single
+	 * pass over the array for each step of the conversion.
+	 * @param realY the y-coordinates in real coordinates
+	 * @param screenY the array to store the y-coordinates in screen coordinates in, which may be
+	 * the same as {@code realY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getScreenY(double[] realY, double[] screenY, int start, int end)
+	{
+		view.getScreenY(realY, screenY, start, end);
 	}
 	
 	/**
@@ -266,7 +328,20 @@ public final class PlotScale {
 	 */
 	public int getPixelX(double realX)
 	{
-		return (int)Math.floor(getScreenX(realX));
+		return view.getPixelX(realX);
+	}
+	
+	/**
+	 * Converts the given x-coordinates from real coordinates to pixel coordinates.
+	 * @param realX the x-coordinates in real coordinates, which are converted to screen
+	 * coordinates in place
+	 * @param pixelX the array to store the x-coordinates in pixel coordinates in
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getPixelX(double[] realX, int[] pixelX, int start, int end)
+	{
+		view.getPixelX(realX, pixelX, start, end);
 	}
 	
 	/**
@@ -276,7 +351,20 @@ public final class PlotScale {
 	 */
 	public int getPixelY(double realY)
 	{
-		return (int)Math.floor(getScreenY(realY));
+		return view.getPixelY(realY);
+	}
+	
+	/**
+	 * Converts the given y-coordinates from real coordinates to pixel coordinates.
+	 * @param realY the y-coordinates in real coordinates, which are converted to screen
+	 * coordinates in place
+	 * @param pixelY the array to store the y-coordinates in pixel coordinates in
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getPixelY(double[] realY, int[] pixelY, int start, int end)
+	{
+		view.getPixelY(realY, pixelY, start, end);
 	}
 	
 	/**
@@ -286,7 +374,20 @@ public final class PlotScale {
 	 */
 	public double getLinearX(double screenX)
 	{
-		return screenX*(edgeBounds.getXRight()-edgeBounds.getXLeft())/gWidth + edgeBounds.getXLeft();
+		return view.getLinearX(screenX);
+	}
+	
+	/**
+	 * Converts the given x-coordinates from screen coordinates to linear coordinates.
+	 * @param screenX the x-coordinates in screen coordinates
+	 * @param linearX the array to store the x-coordinates in linear coordinates in, which may be
+	 * the same as {@code screenX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getLinearX(double[] screenX, double[] linearX, int start, int end)
+	{
+		view.getLinearX(screenX, linearX, start, end);
 	}
 	
 	/**
@@ -296,7 +397,20 @@ public final class PlotScale {
 	 */
 	public double getLinearY(double screenY)
 	{
-		return screenY*(edgeBounds.getYBottom()-edgeBounds.getYTop())/gHeight + edgeBounds.getYTop();
+		return view.getLinearY(screenY);
+	}
+	
+	/**
+	 * Converts the given y-coordinates from screen coordinates to linear coordinates.
+	 * @param screenY the y-coordinates in screen coordinates
+	 * @param linearY the array to store the y-coordinates in linear coordinates in, which may be
+	 * the same as {@code screenY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getLinearY(double[] screenY, double[] linearY, int start, int end)
+	{
+		view.getLinearY(screenY, linearY, start, end);
 	}
 	
 	/**
@@ -306,7 +420,20 @@ public final class PlotScale {
 	 */
 	public double getRealX(double screenX)
 	{
-		return xAxisScale.getReal(getLinearX(screenX));
+		return view.getRealX(screenX);
+	}
+	
+	/**
+	 * Converts the given x-coordinates from screen coordinates to real coordinates.
+	 * @param screenX the x-coordinates in screen coordinates
+	 * @param realX the array to store the x-coordinates in real coordinates in, which may be the
+	 * same as {@code screenX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getRealX(double[] screenX, double[] realX, int start, int end)
+	{
+		view.getRealX(screenX, realX, start, end);
 	}
 	
 	/**
@@ -316,7 +443,20 @@ public final class PlotScale {
 	 */
 	public double getRealY(double screenY)
 	{
-		return yAxisScale.getReal(getLinearY(screenY));
+		return view.getRealY(screenY);
+	}
+	
+	/**
+	 * Converts the given y-coordinates from screen coordinates to real coordinates.
+	 * @param screenY the y-coordinates in screen coordinates
+	 * @param realY the array to store the y-coordinates in real coordinates in, which may be the
+	 * same as {@code screenY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getRealY(double[] screenY, double[] realY, int start, int end)
+	{
+		view.getRealY(screenY, realY, start, end);
 	}
 	
 	/**
@@ -326,7 +466,7 @@ public final class PlotScale {
 	 * @return the distance in real coordinates
 	 */
 	public double getLinearWidth(double screenWidth) {
-		return Math.abs(screenWidth*(edgeBounds.getXRight()-edgeBounds.getXLeft())/gWidth);
+		return view.getLinearWidth(screenWidth);
 	}
 	
 	/**
@@ -336,7 +476,7 @@ public final class PlotScale {
 	 * @return the distance in real coordinates
 	 */
 	public double getLinearHeight(double screenHeight) {
-		return Math.abs(screenHeight*(edgeBounds.getYBottom()-edgeBounds.getYTop())/gHeight);
+		return view.getLinearHeight(screenHeight);
 	}
 	
 	/**
@@ -344,8 +484,16 @@ public final class PlotScale {
 	 * @param spacing the minimum spacing of the labels in pixels
 	 */
 	public TickLabelList getXLabels(int spacing) {
+		return getXLabels(spacing, new TickLabelCache());
+	}
+	
+	/**
+	 * Returns a suitable {@link TickLabelList} object for the x-axis, reusing the labels last
+	 * returned by the given cache where possible.
+	 */
+	TickLabelList getXLabels(int spacing, TickLabelCache cache) {
 		boolean leftIsMin = getRealXLeft() < getRealXRight();
-		return xAxisScale.getLabels(
+		return cache.getLabels(xAxisScale,
 				leftIsMin ? getRealXLeft() : getRealXRight(),
 				leftIsMin ? getRealXRight() : getRealXLeft(),
 				getLinearWidth(spacing));
@@ -356,8 +504,16 @@ public final class PlotScale {
 	 * @param spacing the minimum spacing of the labels in pixels
 	 */
 	public TickLabelList getYLabels(int spacing) {
+		return getYLabels(spacing, new TickLabelCache());
+	}
+	
+	/**
+	 * Returns a suitable {@link TickLabelList} object for the y-axis, reusing the labels last
+	 * returned by the given cache where possible.
+	 */
+	TickLabelList getYLabels(int spacing, TickLabelCache cache) {
 		boolean topIsMin = getRealYTop() < getRealYBottom();
-		return yAxisScale.getLabels(
+		return cache.getLabels(yAxisScale,
 				topIsMin ? getRealYTop() : getRealYBottom(),
 				topIsMin ? getRealYBottom() : getRealYTop(),
 				getLinearHeight(spacing));
@@ -15,19 +15,41 @@ public abstract class PlotStyle {
 	protected PlotScale plotScale;
 	
 	/**
-	 * The labels that should be displayed on the x-axis of the graph.
+	 * The labels that should be displayed on the x-axis of the graph. The same list is kept across
+	 * paints as long as the axis does not change, so it should not be modified.
 	 */
 	protected TickLabelList xLabels;
 	
 	/**
-	 * The labels that should be displayed on the y-axis of the graph.
+	 * The labels that should be displayed on the y-axis of the graph. The same list is kept across
+	 * paints as long as the axis does not change, so it should not be modified.
 	 */
 	protected TickLabelList yLabels;
 	
-	void preparePainting(PlotScale plotScale) {
+	// Incremented whenever the style changes
+	private long version;
+	
+	// The labels of the previous paint, reused while the axes stay the same
+	private final TickLabelCache xLabelCache = new TickLabelCache();
+	private final TickLabelCache yLabelCache = new TickLabelCache();
+	
+	void preparePainting(PlotScale plotScale, PlotQuality quality) {
 		this.plotScale = plotScale;
-		xLabels = plotScale.getXLabels(getMajorAxisSpacingX());
-		yLabels = plotScale.getYLabels(getMajorAxisSpacingY());
+		xLabels = plotScale.getXLabels((int)(getMajorAxisSpacingX() * quality.getLabelSpacing()), xLabelCache);
+		yLabels = plotScale.getYLabels((int)(getMajorAxisSpacingY() * quality.getLabelSpacing()), yLabelCache);
+	}
+	
+	/**
+	 * Marks everything drawn by this style as out of date. Subclasses whose appearance can change
+	 * should call this method whenever it does, followed by repainting the plot, since plots can
+	 * cache what was drawn.
+	 */
+	public void invalidate() {
+		version++;
+	}
+	
+	long getVersion() {
+		return version;
 	}
 	
 	/**
@@ -0,0 +1,425 @@
+package net.patowen.interactiveplot;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * An immutable snapshot of the size, bounds and axis scales of a plot, with all the conversions
+ * between coordinate systems that {@link PlotScale} has. A {@link PlotScale} changes as the plot
+ * is moved and resized, while a {@code PlotView} never does, so it can be handed to other threads
+ * to sample or draw against a consistent view. Each view carries the version of the plot scale it
+ * was taken from.
+ * @author Patrick Owen
+ */
+public final class PlotView {
+	// Width and height of the inside portion of the graph, including the boundary, in number
+	// of pixels.
+	private final int width;
+	private final int height;
+	
+	// The x and y coordinates of the very edge of the graph in linear coordinates.
+	private final double linearXLeft;
+	private final double linearXRight;
+	private final double linearYTop;
+	private final double linearYBottom;
+	
+	private final AxisScale xAxisScale;
+	private final AxisScale yAxisScale;
+	
+	private final long version;
+	
+	// The scale factors between linear and screen coordinates, precomputed so that converting a
+	// coordinate does not divide
+	private final double xScreenPerLinear, yScreenPerLinear;
+	private final double xLinearPerScreen, yLinearPerScreen;
+	
+	PlotView(int width, int height, PlotBounds edgeBounds, AxisScale xAxisScale, AxisScale yAxisScale, long version) {
+		this.width = width;
+		this.height = height;
+		linearXLeft = edgeBounds.getXLeft();
+		linearXRight = edgeBounds.getXRight();
+		linearYTop = edgeBounds.getYTop();
+		linearYBottom = edgeBounds.getYBottom();
+		this.xAxisScale = xAxisScale;
+		this.yAxisScale = yAxisScale;
+		this.version = version;
+		
+		xScreenPerLinear = width/(linearXRight-linearXLeft);
+		yScreenPerLinear = height/(linearYBottom-linearYTop);
+		xLinearPerScreen = (linearXRight-linearXLeft)/width;
+		yLinearPerScreen = (linearYBottom-linearYTop)/height;
+	}
+	
+	/**
+	 * Returns the width of the plot window in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Returns the height of the plot window in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Returns the axis scale of the x-axis.
+	 */
+	public AxisScale getXAxisScale() {
+		return xAxisScale;
+	}
+	
+	/**
+	 * Returns the axis scale of the y-axis.
+	 */
+	public AxisScale getYAxisScale() {
+		return yAxisScale;
+	}
+	
+	/**
+	 * Returns the version of the plot scale this view was taken from. Every change to the size or
+	 * bounds of the plot publishes a view with a higher version, so anything computed for an
+	 * earlier version can be recognized as out of date.
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the left edge of the plot window in screen coordinates.
+	 */
+	public double getScreenXLeft() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the right edge of the plot window in screen coordinates.
+	 */
+	public double getScreenXRight() {
+		return width;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the top edge of the plot window in screen coordinates.
+	 */
+	public double getScreenYTop() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the bottom edge of the plot window in screen coordinates.
+	 */
+	public double getScreenYBottom() {
+		return height;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the leftmost pixels of the plot window in pixel coordinates.
+	 */
+	public int getPixelXLeft() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the rightmost pixels of the plot window in pixel coordinates.
+	 */
+	public int getPixelXRight() {
+		return width-1;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the topmost pixels of the plot window in pixel coordinates.
+	 */
+	public int getPixelYTop() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the bottommost pixels of the plot window in pixel coordinates.
+	 */
+	public int getPixelYBottom() {
+		return height-1;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the left edge of the plot window in real coordinates.
+	 */
+	public double getRealXLeft() {
+		return linearXLeft;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the right edge of the plot window in real coordinates.
+	 */
+	public double getRealXRight() {
+		return linearXRight;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the top edge of the plot window in real coordinates.
+	 */
+	public double getRealYTop() {
+		return linearYTop;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the bottom edge of the plot window in real coordinates.
+	 */
+	public double getRealYBottom() {
+		return linearYBottom;
+	}
+	
+	/**
+	 * Converts the given x-coordinate from real coordinates to screen coordinates.
+	 * @param realX the x-coordinate in real coordinates
+	 * @return the x-coordinate in screen coordinates
+	 */
+	public double getScreenX(double realX)
+	{
+		return (xAxisScale.getLinear(realX)-linearXLeft)*xScreenPerLinear;
+	}
+	
+	/**
+	 * Converts the given x-coordinates from real coordinates to screen coordinates, in a single
+	 * pass over the array for each step of the conversion.
+	 * @param realX the x-coordinates in real coordinates
+	 * @param screenX the array to store the x-coordinates in screen coordinates in, which may be
+	 * the same as {@code realX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getScreenX(double[] realX, double[] screenX, int start, int end)
+	{
+		xAxisScale.getLinear(realX, screenX, start, end);
+		toScreen(screenX, start, end, linearXLeft, xScreenPerLinear);
+	}
+	
+	/**
+	 * Converts the given y-coordinate from real coordinates to screen coordinates.
+	 * @param realY the y-coordinate in real coordinates
+	 * @return the y-coordinate in screen coordinates
+	 */
+	public double getScreenY(double realY)
+	{
+		return (yAxisScale.getLinear(realY)-linearYTop)*yScreenPerLinear;
+	}
+	
+	/**
+	 * Converts the given y-coordinates from real coordinates to screen coordinates, in a single
+	 * pass over the array for each step of the conversion.
+	 * @param realY the y-coordinates in real coordinates
+	 * @param screenY the array to store the y-coordinates in screen coordinates in, which may be
+	 * the same as {@code realY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getScreenY(double[] realY, double[] screenY, int start, int end)
+	{
+		yAxisScale.getLinear(realY, screenY, start, end);
+		toScreen(screenY, start, end, linearYTop, yScreenPerLinear);
+	}
+	
+	/**
+	 * Converts the given x-coordinate from real coordinates to pixel coordinates.
+	 * @param realX the x-coordinate in real coordinates
+	 * @return the x-coordinate in pixel coordinates
+	 */
+	public int getPixelX(double realX)
+	{
+		return (int)Math.floor(getScreenX(realX));
+	}
+	
+	/**
+	 * Converts the given x-coordinates from real coordinates to pixel coordinates.
+	 * @param realX the x-coordinates in real coordinates, which are converted to screen
+	 * coordinates in place
+	 * @param pixelX the array to store the x-coordinates in pixel coordinates in
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getPixelX(double[] realX, int[] pixelX, int start, int end)
+	{
+		getScreenX(realX, realX, start, end);
+		floor(realX, pixelX, start, end);
+	}
+	
+	/**
+	 * Converts the given y-coordinate from real coordinates to pixel coordinates.
+	 * @param realY the y-coordinate in real coordinates
+	 * @return the y-coordinate in pixel coordinates
+	 */
+	public int getPixelY(double realY)
+	{
+		return (int)Math.floor(getScreenY(realY));
+	}
+	
+	/**
+	 * Converts the given y-coordinates from real coordinates to pixel coordinates.
+	 * @param realY the y-coordinates in real coordinates, which are converted to screen
+	 * coordinates in place
+	 * @param pixelY the array to store the y-coordinates in pixel coordinates in
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getPixelY(double[] realY, int[] pixelY, int start, int end)
+	{
+		getScreenY(realY, realY, start, end);
+		floor(realY, pixelY, start, end);
+	}
+	
+	/**
+	 * Converts the given x-coordinate from screen coordinates to linear coordinates.
+	 * @param screenX the x-coordinate in screen coordinates
+	 * @return the x-coordinate in linear coordinates
+	 */
+	public double getLinearX(double screenX)
+	{
+		return screenX*xLinearPerScreen + linearXLeft;
+	}
+	
+	/**
+	 * Converts the given x-coordinates from screen coordinates to linear coordinates.
+	 * @param screenX the x-coordinates in screen coordinates
+	 * @param linearX the array to store the x-coordinates in linear coordinates in, which may be
+	 * the same as {@code screenX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getLinearX(double[] screenX, double[] linearX, int start, int end)
+	{
+		if (screenX != linearX) {
+			System.arraycopy(screenX, start, linearX, start, end - start);
+		}
+		toLinear(linearX, start, end, linearXLeft, xLinearPerScreen);
+	}
+	
+	/**
+	 * Converts the given y-coordinate from screen coordinates to linear coordinates.
+	 * @param screenY the y-coordinate in screen coordinates
+	 * @return the y-coordinate in linear coordinates
+	 */
+	public double getLinearY(double screenY)
+	{
+		return screenY*yLinearPerScreen + linearYTop;
+	}
+	
+	/**
+	 * Converts the given y-coordinates from screen coordinates to linear coordinates.
+	 * @param screenY the y-coordinates in screen coordinates
+	 * @param linearY the array to store the y-coordinates in linear coordinates in, which may be
+	 * the same as {@code screenY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getLinearY(double[] screenY, double[] linearY, int start, int end)
+	{
+		if (screenY != linearY) {
+			System.arraycopy(screenY, start, linearY, start, end - start);
+		}
+		toLinear(linearY, start, end, linearYTop, yLinearPerScreen);
+	}
+	
+	/**
+	 * Converts the given x-coordinate from screen coordinates to real coordinates.
+	 * @param screenX the x-coordinate in screen coordinates
+	 * @return the x-coordinate in real coordinates
+	 */
+	public double getRealX(double screenX)
+	{
+		return xAxisScale.getReal(getLinearX(screenX));
+	}
+	
+	/**
+	 * Converts the given x-coordinates from screen coordinates to real coordinates.
+	 * @param screenX the x-coordinates in screen coordinates
+	 * @param realX the array to store the x-coordinates in real coordinates in, which may be the
+	 * same as {@code screenX}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getRealX(double[] screenX, double[] realX, int start, int end)
+	{
+		getLinearX(screenX, realX, start, end);
+		xAxisScale.getReal(realX, realX, start, end);
+	}
+	
+	/**
+	 * Converts the given y-coordinate from screen coordinates to real coordinates.
+	 * @param screenY the y-coordinate in screen coordinates
+	 * @return the y-coordinate in real coordinates
+	 */
+	public double getRealY(double screenY)
+	{
+		return yAxisScale.getReal(getLinearY(screenY));
+	}
+	
+	/**
+	 * Converts the given y-coordinates from screen coordinates to real coordinates.
+	 * @param screenY the y-coordinates in screen coordinates
+	 * @param realY the array to store the y-coordinates in real coordinates in, which may be the
+	 * same as {@code screenY}
+	 * @param start the first index to convert
+	 * @param end the index after the last one to convert
+	 */
+	public void getRealY(double[] screenY, double[] realY, int start, int end)
+	{
+		getLinearY(screenY, realY, start, end);
+		yAxisScale.getReal(realY, realY, start, end);
+	}
+	
+	// These loops compute exactly what the single-coordinate methods do, and have no calls or
+	// branches, so the JIT compiler can vectorize them.
+	private static void toScreen(double[] values, int start, int end, double linearEdge, double screenPerLinear) {
+		for (int i = start; i < end; i++) {
+			values[i] = (values[i]-linearEdge)*screenPerLinear;
+		}
+	}
+	
+	private static void toLinear(double[] values, int start, int end, double linearEdge, double linearPerScreen) {
+		for (int i = start; i < end; i++) {
+			values[i] = values[i]*linearPerScreen + linearEdge;
+		}
+	}
+	
+	private static void floor(double[] values, int[] floors, int start, int end) {
+		for (int i = start; i < end; i++) {
+			floors[i] = (int)Math.floor(values[i]);
+		}
+	}
+	
+	/**
+	 * Converts the given distance in the horizontal direction from screen coordinates to linear
+	 * coordinates. Any plot translation does not affect the output of this method.
+	 * @param screenWidth the distance in screen coordinates
+	 * @return the distance in real coordinates
+	 */
+	public double getLinearWidth(double screenWidth) {
+		return Math.abs(screenWidth*(linearXRight-linearXLeft)/width);
+	}
+	
+	/**
+	 * Converts the given distance in the vertical direction from screen coordinates to linear
+	 * coordinates. Any plot translation does not affect the output of this method.
+	 * @param screenHeight the distance in screen coordinates
+	 * @return the distance in real coordinates
+	 */
+	public double getLinearHeight(double screenHeight) {
+		return Math.abs(screenHeight*(linearYBottom-linearYTop)/height);
+	}
+	
+	/**
+	 * Returns the transform from the screen coordinates of the given view to the screen
+	 * coordinates of this view, so that anything drawn for the given view can be moved to where
+	 * it belongs in this one. Returns {@code null} if the views have different axis scales, since
+	 * the transform would then not be affine.
+	 */
+	AffineTransform getTransformFrom(PlotView view) {
+		if (view.xAxisScale != xAxisScale || view.yAxisScale != yAxisScale) {
+			return null;
+		}
+		return new AffineTransform(
+				view.xLinearPerScreen*xScreenPerLinear, 0, 0, view.yLinearPerScreen*yScreenPerLinear,
+				(view.linearXLeft-linearXLeft)*xScreenPerLinear, (view.linearYTop-linearYTop)*yScreenPerLinear);
+	}
+}
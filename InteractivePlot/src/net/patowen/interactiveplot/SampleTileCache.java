@@ -0,0 +1,221 @@
+package net.patowen.interactiveplot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches samples of a function on a hierarchy of regular grids in linear coordinates, so that
+ * returning to a previously visited region at a previously visited zoom level needs no function
+ * calls. The grid at level {@code L} has a sample at every multiple of {@code 2^L}, and its samples
+ * are stored in tiles of {@link #TILE_SIZE} consecutive samples. A plot is drawn from the finest
+ * level whose spacing is at most the width of a pixel, with the value at the center of each column
+ * interpolated between the two nearest samples. The least recently used tiles are evicted once the
+ * cache exceeds its size in bytes.
+ * <p>
+ * Samples are looked up with {@link #getGrid}, which returns the samples of the visible range that
+ * are already cached. After the caller evaluates the missing ones, they are added to the cache with
+ * {@link #store}. This class is thread-safe.
+ * @author Patrick Owen
+ */
+final class SampleTileCache {
+	/**
+	 * The number of samples in a tile.
+	 */
+	static final int TILE_SIZE = 256;
+	
+	// An estimate of the memory used by a tile, including the overhead of the map entry.
+	private static final long TILE_BYTES = TILE_SIZE * (Double.BYTES + 1) + 96;
+	
+	private final long maxTiles;
+	
+	// All of the following are guarded by this.
+	private final LinkedHashMap<TileKey, Tile> tiles;
+	private AxisScale xAxisScale;
+	
+	// Incremented whenever the cache is cleared, so that samples of a cleared function are not
+	// stored once they are evaluated.
+	private long epoch;
+	
+	/**
+	 * Creates an empty {@code SampleTileCache}.
+	 * @param maxBytes the approximate maximum amount of memory used by the cache in bytes
+	 */
+	SampleTileCache(long maxBytes) {
+		maxTiles = Math.max(1, maxBytes / TILE_BYTES);
+		tiles = new LinkedHashMap<TileKey, Tile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+				return size() > maxTiles;
+			}
+		};
+	}
+	
+	/**
+	 * Removes every sample from the cache. This should be called when the function changes.
+	 */
+	synchronized void clear() {
+		tiles.clear();
+		epoch++;
+	}
+	
+	/**
+	 * Returns the grid of samples needed to interpolate the function at the center of every column
+	 * of the given horizontal viewport, with every sample that is already cached filled in.
+	 * @param xAxisScale the scale that converts the linear coordinates of the grid into real
+	 * coordinates; the cache is cleared if this changes
+	 * @param linearXLeft the left edge of the viewport in linear coordinates
+	 * @param linearXRight the right edge of the viewport in linear coordinates
+	 * @param width the number of columns in the viewport
+	 */
+	synchronized Grid getGrid(AxisScale xAxisScale, double linearXLeft, double linearXRight, int width) {
+		if (this.xAxisScale != xAxisScale) {
+			clear();
+			this.xAxisScale = xAxisScale;
+		}
+		
+		Grid grid = new Grid(xAxisScale, linearXLeft, linearXRight, width, epoch);
+		for (int i = 0; i < grid.xs.length;) {
+			long index = grid.start + i;
+			Tile tile = tiles.get(new TileKey(grid.level, Math.floorDiv(index, TILE_SIZE)));
+			int offset = Math.floorMod(index, TILE_SIZE);
+			int length = Math.min(TILE_SIZE - offset, grid.xs.length - i);
+			if (tile != null) {
+				System.arraycopy(tile.ys, offset, grid.ys, i, length);
+				System.arraycopy(tile.known, offset, grid.known, i, length);
+			}
+			i += length;
+		}
+		return grid;
+	}
+	
+	/**
+	 * Adds every known sample of the grid to the cache, unless the cache was cleared since the
+	 * grid was created.
+	 */
+	synchronized void store(Grid grid) {
+		if (grid.epoch != epoch) {
+			return;
+		}
+		
+		for (int i = 0; i < grid.xs.length;) {
+			long index = grid.start + i;
+			TileKey key = new TileKey(grid.level, Math.floorDiv(index, TILE_SIZE));
+			Tile tile = tiles.get(key);
+			if (tile == null) {
+				tile = new Tile();
+				tiles.put(key, tile);
+			}
+			
+			int offset = Math.floorMod(index, TILE_SIZE);
+			int length = Math.min(TILE_SIZE - offset, grid.xs.length - i);
+			for (int j = 0; j < length; j++) {
+				if (grid.known[i + j]) {
+					tile.ys[offset + j] = grid.ys[i + j];
+					tile.known[offset + j] = true;
+				}
+			}
+			i += length;
+		}
+	}
+	
+	/**
+	 * The samples of a single level covering a horizontal viewport. Sample {@code i} is at
+	 * {@code (start + i) * 2^level} in linear coordinates.
+	 */
+	static final class Grid {
+		final double[] xs;
+		final double[] ys;
+		final boolean[] known;
+		
+		private final int level;
+		private final long start;
+		private final long epoch;
+		
+		private final double linearXLeft;
+		private final double pixelWidth;
+		
+		private Grid(AxisScale xAxisScale, double linearXLeft, double linearXRight, int width, long epoch) {
+			this.linearXLeft = linearXLeft;
+			this.epoch = epoch;
+			pixelWidth = (linearXRight - linearXLeft) / width;
+			
+			// The spacing of the grid is the largest power of two that is at most the pixel width.
+			// The grid runs from left to right in linear coordinates, which is the opposite of the
+			// columns if the x-axis is reversed.
+			level = Math.getExponent(Math.abs(pixelWidth));
+			double firstCenter = getCenter(0), lastCenter = getCenter(width - 1);
+			start = (long)Math.floor(Math.scalb(Math.min(firstCenter, lastCenter), -level));
+			long end = (long)Math.floor(Math.scalb(Math.max(firstCenter, lastCenter), -level)) + 1;
+			
+			int length = (int)(end - start + 1);
+			xs = new double[length];
+			ys = new double[length];
+			known = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				xs[i] = xAxisScale.getReal(Math.scalb((double)(start + i), level));
+			}
+		}
+		
+		/**
+		 * Stores the value of the function at the center of every column, interpolated linearly
+		 * between the two nearest samples, whichever direction the columns run in. If either
+		 * sample is not finite, the nearest one is used instead. Every sample must be known.
+		 */
+		void interpolate(double[] columnYs) {
+			for (int i = 0; i < columnYs.length; i++) {
+				double t = Math.scalb(getCenter(i), -level);
+				long index = (long)Math.floor(t);
+				int k = (int)(index - start);
+				double f = t - index;
+				double y0 = ys[k], y1 = ys[k + 1];
+				if (Double.isFinite(y0) && Double.isFinite(y1)) {
+					columnYs[i] = y0 + (y1 - y0) * f;
+				} else {
+					columnYs[i] = f < 0.5 ? y0 : y1;
+				}
+			}
+		}
+		
+		// Returns the center of the given column in linear coordinates.
+		private double getCenter(int column) {
+			return linearXLeft + (column + 0.5) * pixelWidth;
+		}
+	}
+	
+	/**
+	 * A run of {@link #TILE_SIZE} consecutive samples of a single level.
+	 */
+	private static final class Tile {
+		private final double[] ys = new double[TILE_SIZE];
+		private final boolean[] known = new boolean[TILE_SIZE];
+	}
+	
+	/**
+	 * Identifies a tile by its level and its index within that level.
+	 */
+	private static final class TileKey {
+		private final int level;
+		private final long index;
+		
+		private TileKey(int level, long index) {
+			this.level = level;
+			this.index = index;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TileKey)) {
+				return false;
+			}
+			TileKey other = (TileKey)obj;
+			return level == other.level && index == other.index;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * level + Long.hashCode(index);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package net.patowen.interactiveplot;
+
+/**
+ * A read-only view of a series of points sorted by x-coordinate, which can be reduced to the
+ * columns of a plot. Points are indexed by {@code long}, so that a series can grow beyond the size
+ * of a single array.
+ * @author Patrick Owen
+ */
+interface SeriesPoints {
+	/**
+	 * Returns the x-coordinate of a point in real coordinates.
+	 */
+	double getX(long index);
+	
+	/**
+	 * Returns the y-coordinate of a point in real coordinates.
+	 */
+	double getY(long index);
+	
+	/**
+	 * Returns the smallest y-coordinate of the points with an index in {@code [from, to)}, ignoring
+	 * NaN, or positive infinity if there is none.
+	 */
+	double getMinY(long from, long to);
+	
+	/**
+	 * Returns the largest y-coordinate of the points with an index in {@code [from, to)}, ignoring
+	 * NaN, or negative infinity if there is none.
+	 */
+	double getMaxY(long from, long to);
+	
+	/**
+	 * Reduces the points with an index in {@code [start, end)} to the first, last, minimum and
+	 * maximum point of every column of the given number of pixels. Two extra columns hold the last
+	 * point before the plot and the first point after it, so that the lines leading out of the plot
+	 * are drawn as well. The columns run from the smallest x-coordinate to the largest, which is
+	 * from right to left on the screen if the x-axis is reversed.
+	 */
+	default ColumnSamples reduce(long start, long end, PlotScale plotScale, int columnWidth) {
+		AxisScale xAxisScale = plotScale.getXAxisScale();
+		int width = (plotScale.getWidth() + columnWidth - 1) / columnWidth;
+		double linearXLeft = Math.min(plotScale.getRealXLeft(), plotScale.getRealXRight());
+		double pixelWidth = Math.abs(plotScale.getRealXRight() - plotScale.getRealXLeft()) / plotScale.getWidth()
+				* columnWidth;
+		
+		// Column i + 1 covers the points from the start of the column up to the start of the next.
+		int columns = width + 2;
+		double[] firstX = new double[columns];
+		double[] first = new double[columns];
+		double[] lastX = new double[columns];
+		double[] last = new double[columns];
+		double[] min = new double[columns];
+		double[] max = new double[columns];
+		
+		long from = findFirst(xAxisScale.getReal(linearXLeft), start, end);
+		long before = from > start ? from - 1 : end;
+		setPoint(before, end, xAxisScale, firstX, first, lastX, last, min, max, 0);
+		for (int i = 0; i < width; i++) {
+			long to = findFirst(xAxisScale.getReal(linearXLeft + (i + 1) * pixelWidth), from, end);
+			if (from == to) {
+				firstX[i + 1] = Double.NaN;
+			} else {
+				firstX[i + 1] = xAxisScale.getLinear(getX(from));
+				first[i + 1] = getY(from);
+				lastX[i + 1] = xAxisScale.getLinear(getX(to - 1));
+				last[i + 1] = getY(to - 1);
+				min[i + 1] = getMinY(from, to);
+				max[i + 1] = getMaxY(from, to);
+			}
+			from = to;
+		}
+		setPoint(from, end, xAxisScale, firstX, first, lastX, last, min, max, columns - 1);
+		
+		return new ColumnSamples(plotScale.getPixelXLeft() - 1, columns, linearXLeft - pixelWidth,
+				linearXLeft + (width + 1) * pixelWidth, firstX, first, lastX, last, min, max);
+	}
+	
+	/**
+	 * Fills the given column with a single point, or leaves it empty if the point is at or past
+	 * {@code end} or has no position on the axis.
+	 */
+	default void setPoint(long index, long end, AxisScale xAxisScale, double[] firstX, double[] first,
+			double[] lastX, double[] last, double[] min, double[] max, int column) {
+		double x = index < end ? xAxisScale.getLinear(getX(index)) : Double.NaN;
+		firstX[column] = lastX[column] = Double.isFinite(x) ? x : Double.NaN;
+		if (!Double.isNaN(firstX[column])) {
+			first[column] = last[column] = min[column] = max[column] = getY(index);
+		}
+	}
+	
+	/**
+	 * Returns the index of the first point in {@code [from, end)} with an x-coordinate of at least
+	 * {@code x}, or {@code end} if there is none.
+	 */
+	default long findFirst(double x, long from, long end) {
+		long low = from, high = end;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (getX(mid) < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,1141 @@
+package net.patowen.interactiveplot;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ColorModel;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.text.AttributedCharacterIterator;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A graphics context that writes what is drawn with it as SVG, such as to export a plot for
+ * publication. Each drawing call is written out as soon as it is made, without building a document
+ * in memory, so the memory used does not depend on how much is drawn.
+ * <p>
+ * Geometry is written in device dots at the resolution given to the constructor, with every
+ * coordinate rounded to the nearest dot. Path data uses relative coordinates, points that round to
+ * the same dot as the previous one are dropped, and consecutive segments in the same direction are
+ * merged, so a path has no more detail than the resolution can show. Consecutive opaque strokes
+ * with the same style are merged into a single {@code <path>} element. Text is written as
+ * {@code <text>} elements and images are embedded as PNG.
+ * <p>
+ * Only solid colors are supported as paints; other paints are drawn with the last color set. XOR
+ * mode and {@link #copyArea} are not supported. Output is buffered, and {@link #finish()} must be
+ * called once drawing is done to end the document. Errors writing the output are reported by
+ * {@link #finish()}.
+ * @author Patrick Owen
+ */
+public final class SvgGraphics2D extends Graphics2D {
+	// The number of characters buffered before they are written out
+	private static final int BUFFER_SIZE = 8192;
+	
+	// A graphics context for measuring text, since an SVG document has no fonts of its own
+	private static final BufferedImage SCRATCH = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+	
+	// What every graphics context created from the same document shares
+	private final Document document;
+	
+	private AffineTransform transform;
+	
+	// The clip in device coordinates, or null if nothing is clipped
+	private Shape clip;
+	
+	private Color color;
+	private Paint paint;
+	private Color background;
+	private Composite composite;
+	private Stroke stroke;
+	private Font font;
+	private RenderingHints hints;
+	
+	/**
+	 * Creates a graphics context that writes an SVG document of the given size to the given
+	 * writer. The size is in user units, which are CSS pixels of 1/96 inch, and geometry is
+	 * rounded to dots of the given resolution. The header of the document is written right away.
+	 * @param out the writer to write the document to, which is not closed
+	 * @param width the width of the document in user units
+	 * @param height the height of the document in user units
+	 * @param dpi the resolution geometry is rounded to, in dots per inch
+	 */
+	public SvgGraphics2D(Writer out, int width, int height, double dpi) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("width and height must be positive");
+		}
+		if (!(dpi > 0) || Double.isInfinite(dpi)) {
+			throw new IllegalArgumentException("dpi must be positive");
+		}
+		double scale = dpi / 96;
+		document = new Document(out, new Configuration(width, height, scale));
+		transform = AffineTransform.getScaleInstance(scale, scale);
+		clip = null;
+		color = Color.BLACK;
+		paint = color;
+		background = Color.WHITE;
+		composite = AlphaComposite.SrcOver;
+		stroke = new BasicStroke();
+		font = new Font(Font.DIALOG, Font.PLAIN, 12);
+		hints = new RenderingHints(null);
+		
+		document.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"")
+				.append(" version=\"1.1\" width=\"").append(width).append("\" height=\"").append(height)
+				.append("\" viewBox=\"0 0 ").append(Math.round(width * scale)).append(' ')
+				.append(Math.round(height * scale)).append("\">\n");
+	}
+	
+	private SvgGraphics2D(SvgGraphics2D g) {
+		document = g.document;
+		transform = new AffineTransform(g.transform);
+		clip = g.clip;
+		color = g.color;
+		paint = g.paint;
+		background = g.background;
+		composite = g.composite;
+		stroke = g.stroke;
+		font = g.font;
+		hints = (RenderingHints)g.hints.clone();
+	}
+	
+	/**
+	 * Ends the document and flushes it to the writer. Nothing can be drawn afterward.
+	 * @throws IOException if the document could not be written
+	 */
+	public void finish() throws IOException {
+		document.closeElement();
+		document.append("</svg>\n");
+		document.flush();
+		if (document.error != null) {
+			throw document.error;
+		}
+	}
+	
+	public Graphics create() {
+		return new SvgGraphics2D(this);
+	}
+	
+	public void dispose() {
+	}
+	
+	// Drawing
+	
+	public void draw(Shape s) {
+		if (!(stroke instanceof BasicStroke)) {
+			fill(stroke.createStrokedShape(s));
+			return;
+		}
+		
+		// Strokes can only be written as such if the transform scales them the same in every
+		// direction. Otherwise, the outline of the stroke is filled.
+		double m00 = transform.getScaleX(), m01 = transform.getShearX();
+		double m10 = transform.getShearY(), m11 = transform.getScaleY();
+		if (!(m00 == m11 && m01 == -m10) && !(m00 == -m11 && m01 == m10)) {
+			fill(stroke.createStrokedShape(s));
+			return;
+		}
+		
+		BasicStroke basicStroke = (BasicStroke)stroke;
+		double scale = Math.sqrt(Math.abs(m00 * m11 - m01 * m10));
+		StringBuilder style = new StringBuilder();
+		style.append("fill=\"none\" ");
+		appendColor(style, "stroke");
+		// A stroke of width zero is drawn as thin as the device allows, as in Java2D.
+		double width = basicStroke.getLineWidth() == 0 ? 1 : basicStroke.getLineWidth() * scale;
+		style.append(" stroke-width=\"").append(formatNumber(width)).append('"');
+		if (basicStroke.getEndCap() == BasicStroke.CAP_ROUND) {
+			style.append(" stroke-linecap=\"round\"");
+		} else if (basicStroke.getEndCap() == BasicStroke.CAP_SQUARE) {
+			style.append(" stroke-linecap=\"square\"");
+		}
+		if (basicStroke.getLineJoin() == BasicStroke.JOIN_ROUND) {
+			style.append(" stroke-linejoin=\"round\"");
+		} else if (basicStroke.getLineJoin() == BasicStroke.JOIN_BEVEL) {
+			style.append(" stroke-linejoin=\"bevel\"");
+		} else if (basicStroke.getMiterLimit() != 4) {
+			style.append(" stroke-miterlimit=\"").append(formatNumber(basicStroke.getMiterLimit())).append('"');
+		}
+		float[] dashes = basicStroke.getDashArray();
+		if (dashes != null) {
+			style.append(" stroke-dasharray=\"");
+			for (int i = 0; i < dashes.length; i++) {
+				style.append(i == 0 ? "" : " ").append(formatNumber(dashes[i] * scale));
+			}
+			style.append('"');
+			if (basicStroke.getDashPhase() != 0) {
+				style.append(" stroke-dashoffset=\"").append(formatNumber(basicStroke.getDashPhase() * scale)).append('"');
+			}
+		}
+		
+		// Overlapping strokes in the same path are only painted once, which only looks the same
+		// if they are opaque. Dashes restart with every element, so dashed strokes are not merged.
+		boolean mergeable = getAlpha() == 255 && dashes == null;
+		document.writePath(s, transform, style.toString(), clip, mergeable);
+	}
+	
+	public void fill(Shape s) {
+		StringBuilder style = new StringBuilder();
+		appendColor(style, "fill");
+		PathIterator it = s.getPathIterator(null);
+		if (it.getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+			style.append(" fill-rule=\"evenodd\"");
+		}
+		document.writePath(s, transform, style.toString(), clip, false);
+	}
+	
+	public void drawLine(int x1, int y1, int x2, int y2) {
+		draw(new Line2D.Float(x1, y1, x2, y2));
+	}
+	
+	public void fillRect(int x, int y, int width, int height) {
+		if (width > 0 && height > 0) {
+			fill(new Rectangle(x, y, width, height));
+		}
+	}
+	
+	public void clearRect(int x, int y, int width, int height) {
+		Paint savedPaint = paint;
+		Color savedColor = color;
+		Composite savedComposite = composite;
+		setColor(background);
+		composite = AlphaComposite.Src;
+		fillRect(x, y, width, height);
+		color = savedColor;
+		paint = savedPaint;
+		composite = savedComposite;
+	}
+	
+	public void drawRect(int x, int y, int width, int height) {
+		if (width >= 0 && height >= 0) {
+			draw(new Rectangle(x, y, width, height));
+		}
+	}
+	
+	public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+	}
+	
+	public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+	}
+	
+	public void drawOval(int x, int y, int width, int height) {
+		draw(new Ellipse2D.Float(x, y, width, height));
+	}
+	
+	public void fillOval(int x, int y, int width, int height) {
+		fill(new Ellipse2D.Float(x, y, width, height));
+	}
+	
+	public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+	}
+	
+	public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+	}
+	
+	public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+		if (nPoints > 0) {
+			draw(createPolygon(xPoints, yPoints, nPoints, false));
+		}
+	}
+	
+	public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+		if (nPoints > 0) {
+			draw(createPolygon(xPoints, yPoints, nPoints, true));
+		}
+	}
+	
+	public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+		if (nPoints > 0) {
+			fill(createPolygon(xPoints, yPoints, nPoints, true));
+		}
+	}
+	
+	private static Path2D createPolygon(int[] xPoints, int[] yPoints, int nPoints, boolean closed) {
+		Path2D.Float path = new Path2D.Float(Path2D.WIND_EVEN_ODD, nPoints);
+		path.moveTo(xPoints[0], yPoints[0]);
+		for (int i = 1; i < nPoints; i++) {
+			path.lineTo(xPoints[i], yPoints[i]);
+		}
+		if (closed) {
+			path.closePath();
+		}
+		return path;
+	}
+	
+	public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+		if (onStroke) {
+			s = stroke.createStrokedShape(s);
+		}
+		s = transform.createTransformedShape(s);
+		return s.intersects(rect);
+	}
+	
+	public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+	}
+	
+	// Text
+	
+	public void drawString(String str, int x, int y) {
+		drawString(str, (float)x, (float)y);
+	}
+	
+	public void drawString(String str, float x, float y) {
+		if (str.isEmpty()) {
+			return;
+		}
+		AffineTransform textTransform = new AffineTransform(transform);
+		textTransform.translate(x, y);
+		if (font.isTransformed()) {
+			textTransform.concatenate(font.getTransform());
+		}
+		
+		StringBuilder style = new StringBuilder();
+		style.append("font-family=\"").append(getFontFamily(font)).append("\" font-size=\"")
+				.append(formatNumber(font.getSize2D())).append('"');
+		if (font.isBold()) {
+			style.append(" font-weight=\"bold\"");
+		}
+		if (font.isItalic()) {
+			style.append(" font-style=\"italic\"");
+		}
+		style.append(' ');
+		appendColor(style, "fill");
+		document.writeText(str, textTransform, style.toString(), clip);
+	}
+	
+	public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+		drawString(iterator, (float)x, (float)y);
+	}
+	
+	public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+		StringBuilder str = new StringBuilder();
+		for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+			str.append(c);
+		}
+		drawString(str.toString(), x, y);
+	}
+	
+	public void drawGlyphVector(GlyphVector g, float x, float y) {
+		fill(g.getOutline(x, y));
+	}
+	
+	// Maps the logical fonts of Java to the generic families of CSS.
+	private static String getFontFamily(Font font) {
+		String family = font.getFamily();
+		switch (family) {
+		case Font.DIALOG:
+		case Font.SANS_SERIF:
+			return "sans-serif";
+		case Font.SERIF:
+			return "serif";
+		case Font.DIALOG_INPUT:
+		case Font.MONOSPACED:
+			return "monospace";
+		default:
+			return escape(family) + ", sans-serif";
+		}
+	}
+	
+	// Images
+	
+	public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+		return drawImage(img, AffineTransform.getTranslateInstance(x, y), observer);
+	}
+	
+	public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+		int width = img.getWidth(observer), height = img.getHeight(observer);
+		if (width < 0 || height < 0) {
+			return false;
+		}
+		return drawImage(img, x, y, width, height, bgcolor, observer);
+	}
+	
+	public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+		return drawImage(img, x, y, width, height, null, observer);
+	}
+	
+	public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+		int imageWidth = img.getWidth(observer), imageHeight = img.getHeight(observer);
+		if (imageWidth < 0 || imageHeight < 0) {
+			return false;
+		}
+		fillBackground(bgcolor, x, y, width, height);
+		AffineTransform xform = AffineTransform.getTranslateInstance(x, y);
+		xform.scale((double)width / imageWidth, (double)height / imageHeight);
+		return drawImage(img, xform, observer);
+	}
+	
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+			ImageObserver observer) {
+		return drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null, observer);
+	}
+	
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+			Color bgcolor, ImageObserver observer) {
+		BufferedImage image = toBufferedImage(img, observer);
+		if (image == null) {
+			return false;
+		}
+		int sx = Math.max(0, Math.min(sx1, sx2)), sy = Math.max(0, Math.min(sy1, sy2));
+		int sw = Math.min(image.getWidth(), Math.max(sx1, sx2)) - sx;
+		int sh = Math.min(image.getHeight(), Math.max(sy1, sy2)) - sy;
+		if (sw <= 0 || sh <= 0 || dx1 == dx2 || dy1 == dy2) {
+			return true;
+		}
+		fillBackground(bgcolor, Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1));
+		
+		// The source rectangle is mapped onto the destination, flipping it if the corners are
+		// given in opposite orders.
+		AffineTransform xform = AffineTransform.getTranslateInstance(dx1, dy1);
+		xform.scale((double)(dx2 - dx1) / (sx2 - sx1), (double)(dy2 - dy1) / (sy2 - sy1));
+		xform.translate(sx - sx1, sy - sy1);
+		writeImage(image.getSubimage(sx, sy, sw, sh), xform);
+		return true;
+	}
+	
+	public boolean drawImage(Image img, AffineTransform xform, ImageObserver observer) {
+		BufferedImage image = toBufferedImage(img, observer);
+		if (image == null) {
+			return false;
+		}
+		writeImage(image, xform == null ? new AffineTransform() : xform);
+		return true;
+	}
+	
+	public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+		writeImage(op == null ? img : op.filter(img, null), AffineTransform.getTranslateInstance(x, y));
+	}
+	
+	public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+		BufferedImage image;
+		if (img instanceof BufferedImage) {
+			image = (BufferedImage)img;
+		} else {
+			image = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			g.drawRenderedImage(img, AffineTransform.getTranslateInstance(-img.getMinX(), -img.getMinY()));
+			g.dispose();
+			xform = new AffineTransform(xform);
+			xform.translate(img.getMinX(), img.getMinY());
+		}
+		writeImage(image, xform);
+	}
+	
+	public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+		drawRenderedImage(img.createDefaultRendering(), xform);
+	}
+	
+	private void fillBackground(Color bgcolor, int x, int y, int width, int height) {
+		if (bgcolor != null) {
+			Paint savedPaint = paint;
+			Color savedColor = color;
+			setColor(bgcolor);
+			fillRect(x, y, width, height);
+			color = savedColor;
+			paint = savedPaint;
+		}
+	}
+	
+	// Returns the image as a BufferedImage, or null if it is not loaded yet.
+	private static BufferedImage toBufferedImage(Image img, ImageObserver observer) {
+		if (img instanceof BufferedImage) {
+			return (BufferedImage)img;
+		}
+		int width = img.getWidth(observer), height = img.getHeight(observer);
+		if (width < 0 || height < 0) {
+			return null;
+		}
+		BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		boolean loaded = g.drawImage(img, 0, 0, observer);
+		g.dispose();
+		return loaded ? image : null;
+	}
+	
+	// Writes the image with the given transform from image space to user space.
+	private void writeImage(BufferedImage image, AffineTransform xform) {
+		AffineTransform imageTransform = new AffineTransform(transform);
+		imageTransform.concatenate(xform);
+		String opacity = getOpacity(255);
+		document.writeImage(image, imageTransform, opacity == null ? "" : "opacity=\"" + opacity + "\"", clip);
+	}
+	
+	// Transform
+	
+	public void translate(int x, int y) {
+		transform.translate(x, y);
+	}
+	
+	public void translate(double tx, double ty) {
+		transform.translate(tx, ty);
+	}
+	
+	public void rotate(double theta) {
+		transform.rotate(theta);
+	}
+	
+	public void rotate(double theta, double x, double y) {
+		transform.rotate(theta, x, y);
+	}
+	
+	public void scale(double sx, double sy) {
+		transform.scale(sx, sy);
+	}
+	
+	public void shear(double shx, double shy) {
+		transform.shear(shx, shy);
+	}
+	
+	public void transform(AffineTransform tx) {
+		transform.concatenate(tx);
+	}
+	
+	public void setTransform(AffineTransform tx) {
+		transform = new AffineTransform(tx);
+	}
+	
+	public AffineTransform getTransform() {
+		return new AffineTransform(transform);
+	}
+	
+	// Clip
+	
+	public Shape getClip() {
+		if (clip == null) {
+			return null;
+		}
+		try {
+			return transform.createInverse().createTransformedShape(clip);
+		} catch (NoninvertibleTransformException e) {
+			return null;
+		}
+	}
+	
+	public Rectangle getClipBounds() {
+		Shape userClip = getClip();
+		return userClip == null ? null : userClip.getBounds();
+	}
+	
+	public void setClip(int x, int y, int width, int height) {
+		setClip(new Rectangle(x, y, width, height));
+	}
+	
+	public void setClip(Shape clip) {
+		this.clip = clip == null ? null : toDevice(clip);
+	}
+	
+	public void clipRect(int x, int y, int width, int height) {
+		clip(new Rectangle(x, y, width, height));
+	}
+	
+	public void clip(Shape s) {
+		if (s == null) {
+			clip = null;
+			return;
+		}
+		Shape deviceClip = toDevice(s);
+		if (clip == null) {
+			clip = deviceClip;
+		} else if (clip instanceof Rectangle2D && deviceClip instanceof Rectangle2D) {
+			clip = ((Rectangle2D)clip).createIntersection((Rectangle2D)deviceClip);
+		} else {
+			Area area = new Area(clip);
+			area.intersect(new Area(deviceClip));
+			clip = area;
+		}
+	}
+	
+	// Transforms a shape to device coordinates, keeping rectangles as rectangles where possible.
+	private Shape toDevice(Shape s) {
+		int type = transform.getType();
+		if (s instanceof Rectangle2D && (type & (AffineTransform.TYPE_GENERAL_ROTATION
+				| AffineTransform.TYPE_QUADRANT_ROTATION | AffineTransform.TYPE_GENERAL_TRANSFORM)) == 0) {
+			return transform.createTransformedShape(s).getBounds2D();
+		}
+		return new Path2D.Double(s, transform);
+	}
+	
+	// Attributes
+	
+	public Color getColor() {
+		return color;
+	}
+	
+	public void setColor(Color c) {
+		if (c != null) {
+			color = c;
+			paint = c;
+		}
+	}
+	
+	public Paint getPaint() {
+		return paint;
+	}
+	
+	public void setPaint(Paint paint) {
+		if (paint instanceof Color) {
+			setColor((Color)paint);
+		} else if (paint != null) {
+			this.paint = paint;
+		}
+	}
+	
+	public Color getBackground() {
+		return background;
+	}
+	
+	public void setBackground(Color color) {
+		background = color;
+	}
+	
+	public Composite getComposite() {
+		return composite;
+	}
+	
+	public void setComposite(Composite comp) {
+		composite = comp;
+	}
+	
+	public void setPaintMode() {
+		composite = AlphaComposite.SrcOver;
+	}
+	
+	public void setXORMode(Color c1) {
+	}
+	
+	public Stroke getStroke() {
+		return stroke;
+	}
+	
+	public void setStroke(Stroke s) {
+		stroke = s;
+	}
+	
+	public Font getFont() {
+		return font;
+	}
+	
+	public void setFont(Font font) {
+		if (font != null) {
+			this.font = font;
+		}
+	}
+	
+	public FontMetrics getFontMetrics(Font f) {
+		Graphics2D g = SCRATCH.createGraphics();
+		g.setRenderingHints(hints);
+		FontMetrics metrics = g.getFontMetrics(f);
+		g.dispose();
+		return metrics;
+	}
+	
+	public FontRenderContext getFontRenderContext() {
+		return new FontRenderContext(new AffineTransform(transform),
+				hints.get(RenderingHints.KEY_TEXT_ANTIALIASING), hints.get(RenderingHints.KEY_FRACTIONALMETRICS));
+	}
+	
+	public Object getRenderingHint(RenderingHints.Key hintKey) {
+		return hints.get(hintKey);
+	}
+	
+	public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+		hints.put(hintKey, hintValue);
+	}
+	
+	public void setRenderingHints(Map<?, ?> hints) {
+		this.hints = new RenderingHints(null);
+		this.hints.putAll(hints);
+	}
+	
+	public void addRenderingHints(Map<?, ?> hints) {
+		this.hints.putAll(hints);
+	}
+	
+	public RenderingHints getRenderingHints() {
+		return (RenderingHints)hints.clone();
+	}
+	
+	/**
+	 * Returns a configuration for a printer, so that anything that draws differently for vector
+	 * output can tell.
+	 */
+	public GraphicsConfiguration getDeviceConfiguration() {
+		return document.configuration;
+	}
+	
+	// Returns the alpha of the current color combined with that of the composite.
+	private int getAlpha() {
+		float alpha = color.getAlpha() / 255f;
+		if (composite instanceof AlphaComposite) {
+			alpha *= ((AlphaComposite)composite).getAlpha();
+		}
+		return Math.round(alpha * 255);
+	}
+	
+	// Returns the opacity of something drawn with the given alpha under the current composite, or
+	// null if it is opaque.
+	private String getOpacity(int alpha) {
+		float opacity = alpha / 255f;
+		if (composite instanceof AlphaComposite) {
+			opacity *= ((AlphaComposite)composite).getAlpha();
+		}
+		return opacity >= 1 ? null : formatNumber(opacity);
+	}
+	
+	private void appendColor(StringBuilder style, String attribute) {
+		style.append(attribute).append("=\"#");
+		String hex = Integer.toHexString(color.getRGB() & 0xffffff);
+		for (int i = hex.length(); i < 6; i++) {
+			style.append('0');
+		}
+		style.append(hex).append('"');
+		String opacity = getOpacity(color.getAlpha());
+		if (opacity != null) {
+			style.append(' ').append(attribute).append("-opacity=\"").append(opacity).append('"');
+		}
+	}
+	
+	// Formats a number with at most three decimals and no trailing zeros.
+	private static String formatNumber(double value) {
+		long thousandths = Math.round(value * 1000);
+		if (thousandths % 1000 == 0) {
+			return Long.toString(thousandths / 1000);
+		}
+		String str = Double.toString(thousandths / 1000.0);
+		if (str.indexOf('E') >= 0) {
+			return String.format("%.3f", value);
+		}
+		return str;
+	}
+	
+	private static String escape(String str) {
+		StringBuilder escaped = new StringBuilder(str.length());
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			switch (c) {
+			case '&': escaped.append("&amp;"); break;
+			case '<': escaped.append("&lt;"); break;
+			case '>': escaped.append("&gt;"); break;
+			case '"': escaped.append("&quot;"); break;
+			default:
+				// Control characters cannot appear in XML.
+				if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped.toString();
+	}
+	
+	/**
+	 * The output shared by a graphics context and every context created from it. It buffers the
+	 * text of the document, keeps the last path element open so that following strokes with the
+	 * same style can be added to it, and remembers the last clip written.
+	 */
+	private static final class Document {
+		private final Writer out;
+		private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 256);
+		private final Configuration configuration;
+		private IOException error;
+		
+		// The style of the open path element, or null if no path element is open
+		private String openStyle;
+		
+		// The current point of the path data in dots
+		private long currentX, currentY;
+		
+		// The start of the current subpath in dots
+		private long startX, startY;
+		
+		// A segment from the current point that has not been written yet, since the next segment
+		// may continue it in the same direction
+		private long pendingX, pendingY;
+		
+		// Whether the current subpath has any segment, written or dropped
+		private boolean subpathHasSegment;
+		private boolean subpathWritten;
+		
+		// The last command letter written, which need not be repeated
+		private char lastCommand;
+		
+		// Whether the last character of the path data is part of a number
+		private boolean afterNumber;
+		
+		private Shape lastClip;
+		private String lastClipId;
+		private int clipCount;
+		
+		private Document(Writer out, Configuration configuration) {
+			this.out = out;
+			this.configuration = configuration;
+		}
+		
+		private Document append(String str) {
+			buffer.append(str);
+			return this;
+		}
+		
+		private Document append(long value) {
+			buffer.append(value);
+			return this;
+		}
+		
+		private Document append(char c) {
+			buffer.append(c);
+			return this;
+		}
+		
+		// Writes out the buffer once it is full.
+		private void drain() {
+			if (buffer.length() >= BUFFER_SIZE) {
+				flush();
+			}
+		}
+		
+		private void flush() {
+			if (error == null) {
+				try {
+					out.append(buffer);
+					out.flush();
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			buffer.setLength(0);
+		}
+		
+		/**
+		 * Writes the outline of a shape, adding it to the open path element if it has the same
+		 * style and both may be merged.
+		 */
+		private void writePath(Shape s, AffineTransform transform, String style, Shape clip, boolean mergeable) {
+			String clipId = getClipId(clip);
+			if (clipId != null) {
+				style += " clip-path=\"url(#" + clipId + ")\"";
+			}
+			if (!mergeable || !style.equals(openStyle)) {
+				closeElement();
+				append("<path ").append(style).append(" d=\"");
+				openStyle = style;
+				lastCommand = 0;
+				afterNumber = false;
+			}
+			appendPathData(s.getPathIterator(transform));
+			if (!mergeable) {
+				closeElement();
+			}
+			drain();
+		}
+		
+		private void writeText(String str, AffineTransform transform, String style, Shape clip) {
+			String clipId = getClipId(clip);
+			closeElement();
+			append("<text transform=\"");
+			appendMatrix(transform);
+			append("\" ").append(style);
+			if (clipId != null) {
+				append(" clip-path=\"url(#").append(clipId).append(")\"");
+			}
+			append(" xml:space=\"preserve\">").append(escape(str)).append("</text>\n");
+			drain();
+		}
+		
+		private void writeImage(BufferedImage image, AffineTransform transform, String style, Shape clip) {
+			String clipId = getClipId(clip);
+			closeElement();
+			append("<image width=\"").append(image.getWidth()).append("\" height=\"").append(image.getHeight())
+					.append("\" preserveAspectRatio=\"none\" transform=\"");
+			appendMatrix(transform);
+			append('"');
+			if (!style.isEmpty()) {
+				append(' ').append(style);
+			}
+			if (clipId != null) {
+				append(" clip-path=\"url(#").append(clipId).append(")\"");
+			}
+			append(" xlink:href=\"data:image/png;base64,");
+			flush();
+			
+			// The image is encoded straight into the output rather than into memory first.
+			try (OutputStream encoder = Base64.getEncoder().wrap(new OutputStream() {
+				public void write(int b) {
+					buffer.append((char)(b & 0xff));
+					drain();
+				}
+			})) {
+				ImageIO.write(image, "png", encoder);
+			} catch (IOException e) {
+				if (error == null) {
+					error = e;
+				}
+			}
+			append("\"/>\n");
+			drain();
+		}
+		
+		// Returns the id of the clip path for the given clip, writing it if it differs from the
+		// last one, or null if nothing is clipped.
+		private String getClipId(Shape clip) {
+			if (clip == null) {
+				return null;
+			}
+			if (clip == lastClip || (clip instanceof Rectangle2D && clip.equals(lastClip))) {
+				return lastClipId;
+			}
+			closeElement();
+			lastClip = clip;
+			lastClipId = "c" + clipCount++;
+			append("<clipPath id=\"").append(lastClipId).append("\"><path d=\"");
+			lastCommand = 0;
+			afterNumber = false;
+			appendPathData(clip.getPathIterator(null));
+			append("\"/></clipPath>\n");
+			return lastClipId;
+		}
+		
+		private void closeElement() {
+			if (openStyle != null) {
+				append("\"/>\n");
+				openStyle = null;
+			}
+		}
+		
+		private void appendMatrix(AffineTransform t) {
+			append("matrix(").append(formatNumber(t.getScaleX())).append(' ').append(formatNumber(t.getShearY()))
+					.append(' ').append(formatNumber(t.getShearX())).append(' ').append(formatNumber(t.getScaleY()))
+					.append(' ').append(formatNumber(t.getTranslateX())).append(' ')
+					.append(formatNumber(t.getTranslateY())).append(')');
+		}
+		
+		// Appends the path data of a path in device coordinates, rounded to whole dots.
+		private void appendPathData(PathIterator it) {
+			double[] coords = new double[6];
+			for (; !it.isDone(); it.next()) {
+				switch (it.currentSegment(coords)) {
+				case PathIterator.SEG_MOVETO:
+					endSubpath();
+					moveTo(Math.round(coords[0]), Math.round(coords[1]));
+					break;
+				case PathIterator.SEG_LINETO:
+					lineTo(Math.round(coords[0]), Math.round(coords[1]));
+					break;
+				case PathIterator.SEG_QUADTO:
+					flushPending();
+					subpathHasSegment = subpathWritten = true;
+					appendCurve('q', coords, 2);
+					break;
+				case PathIterator.SEG_CUBICTO:
+					flushPending();
+					subpathHasSegment = subpathWritten = true;
+					appendCurve('c', coords, 3);
+					break;
+				case PathIterator.SEG_CLOSE:
+					flushPending();
+					appendCommand('z');
+					currentX = startX;
+					currentY = startY;
+					subpathHasSegment = subpathWritten = true;
+					break;
+				}
+			}
+			endSubpath();
+		}
+		
+		private void moveTo(long x, long y) {
+			// The first move of a path element is absolute, since there is no current point yet.
+			if (lastCommand == 0) {
+				appendCommand('M');
+				appendNumber(x);
+				appendNumber(y);
+			} else {
+				appendCommand('m');
+				appendNumber(x - currentX);
+				appendNumber(y - currentY);
+			}
+			// Coordinates after a move are implicitly lines.
+			lastCommand = lastCommand == 'M' ? 'L' : 'l';
+			currentX = startX = x;
+			currentY = startY = y;
+			pendingX = pendingY = 0;
+			subpathHasSegment = false;
+			subpathWritten = false;
+		}
+		
+		// Adds a line to the given point, dropping it if it rounds to the current point and
+		// merging it with the pending segment if it continues it in the same direction.
+		private void lineTo(long x, long y) {
+			subpathHasSegment = true;
+			long dx = x - (currentX + pendingX), dy = y - (currentY + pendingY);
+			if (dx == 0 && dy == 0) {
+				return;
+			}
+			if ((pendingX != 0 || pendingY != 0) && pendingX * dy == pendingY * dx && pendingX * dx + pendingY * dy > 0) {
+				pendingX += dx;
+				pendingY += dy;
+				return;
+			}
+			flushPending();
+			pendingX = dx;
+			pendingY = dy;
+		}
+		
+		private void flushPending() {
+			if (pendingX == 0 && pendingY == 0) {
+				return;
+			}
+			if (pendingY == 0) {
+				appendCommand('h');
+				appendNumber(pendingX);
+			} else if (pendingX == 0) {
+				appendCommand('v');
+				appendNumber(pendingY);
+			} else {
+				appendCommand('l');
+				appendNumber(pendingX);
+				appendNumber(pendingY);
+			}
+			currentX += pendingX;
+			currentY += pendingY;
+			pendingX = pendingY = 0;
+			subpathWritten = true;
+		}
+		
+		// Ends the current subpath. A subpath whose segments all rounded away still gets a
+		// segment, since caps are drawn even for a line of length zero.
+		private void endSubpath() {
+			flushPending();
+			if (subpathHasSegment && !subpathWritten) {
+				appendCommand('h');
+				appendNumber(0);
+				subpathWritten = true;
+			}
+			subpathHasSegment = false;
+		}
+		
+		private void appendCurve(char command, double[] coords, int points) {
+			appendCommand(command);
+			for (int i = 0; i < points; i++) {
+				appendNumber(Math.round(coords[2*i]) - currentX);
+				appendNumber(Math.round(coords[2*i + 1]) - currentY);
+			}
+			currentX = Math.round(coords[2*points - 2]);
+			currentY = Math.round(coords[2*points - 1]);
+		}
+		
+		private void appendCommand(char command) {
+			if (command != lastCommand || command == 'z') {
+				buffer.append(command);
+				afterNumber = false;
+				lastCommand = command;
+			}
+		}
+		
+		// Numbers are only separated where the sign does not already separate them.
+		private void appendNumber(long value) {
+			if (afterNumber && value >= 0) {
+				buffer.append(' ');
+			}
+			buffer.append(value);
+			afterNumber = true;
+		}
+	}
+	
+	/**
+	 * Describes the document as a printer, whose pixels are the dots of the document.
+	 */
+	private static final class Configuration extends GraphicsConfiguration {
+		private final Rectangle bounds;
+		private final double scale;
+		private final Device device = new Device(this);
+		
+		private Configuration(int width, int height, double scale) {
+			bounds = new Rectangle(0, 0, (int)Math.round(width * scale), (int)Math.round(height * scale));
+			this.scale = scale;
+		}
+		
+		public GraphicsDevice getDevice() {
+			return device;
+		}
+		
+		public ColorModel getColorModel() {
+			return ColorModel.getRGBdefault();
+		}
+		
+		public ColorModel getColorModel(int transparency) {
+			return ColorModel.getRGBdefault();
+		}
+		
+		public AffineTransform getDefaultTransform() {
+			return AffineTransform.getScaleInstance(scale, scale);
+		}
+		
+		public AffineTransform getNormalizingTransform() {
+			return AffineTransform.getScaleInstance(96 / 72.0, 96 / 72.0);
+		}
+		
+		public Rectangle getBounds() {
+			return new Rectangle(bounds);
+		}
+	}
+	
+	private static final class Device extends GraphicsDevice {
+		private final Configuration configuration;
+		
+		private Device(Configuration configuration) {
+			this.configuration = configuration;
+		}
+		
+		public int getType() {
+			return TYPE_PRINTER;
+		}
+		
+		public String getIDstring() {
+			return "SVG";
+		}
+		
+		public GraphicsConfiguration[] getConfigurations() {
+			return new GraphicsConfiguration[] {configuration};
+		}
+		
+		public GraphicsConfiguration getDefaultConfiguration() {
+			return configuration;
+		}
+	}
+}
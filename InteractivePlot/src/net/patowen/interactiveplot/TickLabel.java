@@ -9,6 +9,11 @@ public class TickLabel {
 	private double location;
 	private String text;
 	
+	// The exact location as coefficient * 10^exponent, if the label was created from a decimal
+	private boolean exact;
+	private long coefficient;
+	private int exponent;
+	
 	/**
 	 * Creates a new {@code AxisLabel} with the given position in real coordinates and the given
 	 * label text.
@@ -20,6 +25,17 @@ public class TickLabel {
 		this.text = text;
 	}
 	
+	/**
+	 * Creates a new {@code TickLabel} at the given decimal in real coordinates, which it can be
+	 * compared to exactly.
+	 */
+	TickLabel(long coefficient, int exponent, String text) {
+		this(Decimal.toDouble(coefficient, exponent), text);
+		exact = true;
+		this.coefficient = coefficient;
+		this.exponent = exponent;
+	}
+	
 	/**
 	 * Returns the x- or y-coordinate of the label.
 	 */
@@ -33,4 +49,17 @@ public class TickLabel {
 	public String getText() {
 		return text;
 	}
+	
+	/**
+	 * Compares the location of the label with the given real coordinate, exactly if the label was
+	 * created from a decimal.
+	 * @return a negative number, zero or a positive number if the label is below, at or above the
+	 * coordinate
+	 */
+	int compare(double real) {
+		if (exact) {
+			return Decimal.compare(coefficient, exponent, real);
+		}
+		return location < real ? -1 : location > real ? 1 : 0;
+	}
 }
@@ -0,0 +1,76 @@
+package net.patowen.interactiveplot;
+
+/**
+ * Remembers the labels last created for one axis, so that they are only created again when the
+ * axis changes. If the range of the axis is the same as before, such as when only the data of the
+ * plot changes, the same {@link TickLabelList} is returned without any work. If the range has only
+ * moved and the axis scale {@link AxisScale#hasSameLabels has the same labels} for both intervals,
+ * the labels still in range are kept, and labels are only created for the newly exposed edges.
+ * Labels are kept in the order the axis scale creates them in if it creates them from left to
+ * right, and whether a label is in range is decided by comparing its exact decimal value, as
+ * {@link LinearAxisScale} does.
+ * @author Patrick Owen
+ */
+final class TickLabelCache {
+	private AxisScale axisScale;
+	private double linearMin;
+	private double linearMax;
+	private double minLinearInterval;
+	private TickLabelList labels;
+	
+	/**
+	 * Returns the same labels as {@link AxisScale#getLabels}, reusing the previous labels where
+	 * possible. The returned list may be returned again by later calls, so it should not be
+	 * modified.
+	 */
+	TickLabelList getLabels(AxisScale axisScale, double linearMin, double linearMax, double minLinearInterval) {
+		if (labels != null && axisScale == this.axisScale && linearMin == this.linearMin
+				&& linearMax == this.linearMax && minLinearInterval == this.minLinearInterval) {
+			return labels;
+		}
+		
+		TickLabelList result;
+		if (labels != null && axisScale == this.axisScale && linearMin <= this.linearMax
+				&& linearMax >= this.linearMin && axisScale.hasSameLabels(minLinearInterval, this.minLinearInterval)) {
+			double realMin = axisScale.getReal(linearMin);
+			double realMax = axisScale.getReal(linearMax);
+			double previousRealMin = axisScale.getReal(this.linearMin);
+			double previousRealMax = axisScale.getReal(this.linearMax);
+			
+			result = new TickLabelList();
+			if (linearMin < this.linearMin) {
+				addNewLabels(result, axisScale.getLabels(linearMin, this.linearMin, minLinearInterval),
+						previousRealMin, previousRealMax);
+			}
+			for (TickLabel label : labels.getLabels()) {
+				if (label.compare(realMin) >= 0 && label.compare(realMax) <= 0) {
+					result.addLabel(label);
+				}
+			}
+			if (linearMax > this.linearMax) {
+				addNewLabels(result, axisScale.getLabels(this.linearMax, linearMax, minLinearInterval),
+						previousRealMin, previousRealMax);
+			}
+		} else {
+			result = axisScale.getLabels(linearMin, linearMax, minLinearInterval);
+		}
+		
+		this.axisScale = axisScale;
+		this.linearMin = linearMin;
+		this.linearMax = linearMax;
+		this.minLinearInterval = minLinearInterval;
+		labels = result;
+		return result;
+	}
+	
+	// Adds the labels of an edge that were not already in the previous range, given in real
+	// coordinates.
+	private static void addNewLabels(TickLabelList result, TickLabelList edgeLabels,
+			double previousRealMin, double previousRealMax) {
+		for (TickLabel label : edgeLabels.getLabels()) {
+			if (label.compare(previousRealMin) < 0 || label.compare(previousRealMax) > 0) {
+				result.addLabel(label);
+			}
+		}
+	}
+}
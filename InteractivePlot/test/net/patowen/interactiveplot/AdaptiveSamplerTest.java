@@ -0,0 +1,71 @@
+package net.patowen.interactiveplot;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AdaptiveSampler} does not connect the two sides of a pole.
+ * @author Patrick Owen
+ */
+public class AdaptiveSamplerTest {
+	// The range of y shown by every plot in these tests
+	private static final double Y_RANGE = 3;
+	
+	@Test
+	public void tangentPolesAreNotConnected() {
+		assertNoFalseVerticalLines(Math::tan, -6, 6, 400);
+	}
+	
+	@Test
+	public void tangentPolesAreNotConnectedWhenZoomedIn() {
+		assertNoFalseVerticalLines(Math::tan, 4.7, 4.725, 400);
+	}
+	
+	@Test
+	public void reciprocalPoleIsNotConnected() {
+		assertNoFalseVerticalLines(x -> 1 / (x - 0.123), -1, 1, 301);
+	}
+	
+	// Samples the function over the given x range and checks that no column draws a line from
+	// beyond the top of the plot to beyond the bottom, either within the column or from the
+	// previous column.
+	private static void assertNoFalseVerticalLines(PlotFunction fun, double xLeft, double xRight, int width) {
+		PlotView view = PlotScale.getBuilder()
+				.setBounds(new PlotBounds(xLeft, xRight, Y_RANGE, -Y_RANGE))
+				.setSize(width, 300)
+				.setConstraints(new PlotConstraints())
+				.setAxisScales(new LinearAxisScale(), new LinearAxisScale())
+				.build()
+				.getView();
+		AdaptiveSampler sampler = new AdaptiveSampler(fun, view);
+		
+		double[] edgeYs = new double[width + 1];
+		double[] centerYs = new double[width];
+		for (int i = 0; i <= width; i++) {
+			edgeYs[i] = fun.getY(sampler.getEdgeX(i));
+		}
+		for (int i = 0; i < width; i++) {
+			centerYs[i] = fun.getY((sampler.getEdgeX(i) + sampler.getEdgeX(i + 1)) / 2);
+		}
+		ColumnSamples samples = sampler.sample(centerYs, edgeYs, null, () -> false, null, 0);
+		
+		double[] first = new double[width], last = new double[width];
+		double[] min = new double[width], max = new double[width];
+		boolean[] breakBefore = new boolean[width];
+		samples.copyColumns(0, first, last, min, max, breakBefore, 0, width);
+		
+		for (int i = 0; i < width; i++) {
+			assertFalse(min[i] < -Y_RANGE && max[i] > Y_RANGE,
+					"column " + i + " spans the plot from " + min[i] + " to " + max[i]);
+			if (i > 0 && !breakBefore[i]) {
+				assertFalse(crossesPlot(last[i - 1], first[i]),
+						"columns " + (i - 1) + " and " + i + " are connected from " + last[i - 1] + " to " + first[i]);
+			}
+		}
+	}
+	
+	private static boolean crossesPlot(double y0, double y1) {
+		return Math.min(y0, y1) < -Y_RANGE && Math.max(y0, y1) > Y_RANGE;
+	}
+}
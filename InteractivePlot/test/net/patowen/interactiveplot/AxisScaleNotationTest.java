@@ -0,0 +1,68 @@
+package net.patowen.interactiveplot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the labels an axis scale creates for one range are all written in the same notation,
+ * rather than each label switching to scientific notation on its own.
+ * @author Patrick Owen
+ */
+public class AxisScaleNotationTest {
+	private static final int CASES = 20000;
+	
+	@Test
+	public void linearLabelsShareNotation() {
+		Random random = new Random(1);
+		AxisScale axisScale = new LinearAxisScale();
+		for (int i = 0; i < CASES; i++) {
+			double center = (random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextDouble() * 30 - 15);
+			double width = Math.abs(center) * Math.pow(10, random.nextDouble() * 10 - 8);
+			double interval = width / (2 + random.nextInt(40));
+			assertSameNotation(axisScale.getLabels(center - width / 2, center + width / 2, interval));
+		}
+	}
+	
+	@Test
+	public void linearLabelsNearPowersOfTenShareNotation() {
+		// These ranges used to mix labels such as -2.2E5 and -221000, or 3.9E6 and 3892000.
+		AxisScale axisScale = new LinearAxisScale();
+		assertSameNotation(axisScale.getLabels(-225000, -215000, 1000));
+		assertSameNotation(axisScale.getLabels(3880000, 3920000, 2000));
+		assertSameNotation(axisScale.getLabels(3880000, 3920000, 100));
+		assertSameNotation(axisScale.getLabels(99990, 100010, 1));
+	}
+	
+	@Test
+	public void logLabelsShareNotation() {
+		Random random = new Random(2);
+		AxisScale axisScale = new LogAxisScale();
+		for (int i = 0; i < CASES; i++) {
+			double linearMin = random.nextDouble() * 40 - 20;
+			double width = Math.pow(10, random.nextDouble() * 8 - 6);
+			double interval = width / (2 + random.nextInt(40));
+			assertSameNotation(axisScale.getLabels(linearMin, linearMin + width, interval));
+		}
+	}
+	
+	private static void assertSameNotation(TickLabelList labels) {
+		List<String> texts = new ArrayList<>();
+		int scientific = 0;
+		for (TickLabel label : labels.getLabels()) {
+			texts.add(label.getText());
+			if (label.getText().indexOf('E') >= 0) {
+				scientific++;
+			}
+		}
+		// Zero is written the same way in either notation.
+		int zeros = texts.contains("0") ? 1 : 0;
+		if (scientific > 0) {
+			assertEquals(texts.size() - zeros, scientific, "labels " + texts);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package net.patowen.interactiveplot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BinaryDecimal#compare(long, int, int, double)}, which compares exactly with the
+ * tables of powers of five, against the same comparison done with {@link BigDecimal} and against
+ * the step-by-step comparison it replaced.
+ * @author Patrick Owen
+ */
+public class BinaryDecimalTest {
+	private static final int CASES = 200000;
+	
+	@Test
+	public void randomValuesMatchBigDecimal() {
+		Random random = new Random(1);
+		for (int i = 0; i < CASES; i++) {
+			long coefficient = randomCoefficient(random);
+			int decExponent = random.nextInt(841) - 420;
+			double comparison = randomDouble(random);
+			assertMatchesBigDecimal(coefficient, decExponent, comparison);
+		}
+	}
+	
+	@Test
+	public void nearlyEqualValuesMatchBigDecimal() {
+		// The doubles nearest to the decimal are the hardest to compare, since they agree with it
+		// in every bit but the last few.
+		Random random = new Random(2);
+		for (int i = 0; i < CASES; i++) {
+			long coefficient = randomCoefficient(random);
+			int decExponent = random.nextInt(680) - 340;
+			double nearest = toBigDecimal(coefficient, decExponent).doubleValue();
+			if (nearest == 0 || Double.isInfinite(nearest)) {
+				continue;
+			}
+			assertMatchesBigDecimal(coefficient, decExponent, nearest);
+			assertMatchesBigDecimal(coefficient, decExponent, Math.nextUp(nearest));
+			assertMatchesBigDecimal(coefficient, decExponent, Math.nextDown(nearest));
+		}
+	}
+	
+	@Test
+	public void equalValuesMatchBigDecimal() {
+		// m * 5 ^ k * 10 ^ -k is exactly the double m * 2 ^ -k, and m * 10 ^ k is exactly a
+		// double while it needs at most 53 bits.
+		Random random = new Random(3);
+		for (int i = 0; i < CASES; i++) {
+			long m = 1 + random.nextInt(1 << 20);
+			int k = random.nextInt(17);
+			assertMatchesBigDecimal(m * pow5(k), -k, Math.scalb((double)m, -k));
+			if (k <= 10) {
+				assertMatchesBigDecimal(m, k, m * Math.pow(10, k));
+			}
+		}
+	}
+	
+	@Test
+	public void extremeValuesMatchBigDecimal() {
+		long[] coefficients = {1, 9, 10, Long.MAX_VALUE / 10, Long.MAX_VALUE};
+		double[] comparisons = {Double.MIN_VALUE, Double.MIN_NORMAL, Math.nextDown(Double.MIN_NORMAL), 1,
+				Double.MAX_VALUE};
+		for (long coefficient : coefficients) {
+			for (int decExponent = -450; decExponent <= 450; decExponent++) {
+				for (double comparison : comparisons) {
+					assertMatchesBigDecimal(coefficient, decExponent, comparison);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void randomValuesMatchStepByStep() {
+		Random random = new Random(4);
+		for (int i = 0; i < CASES; i++) {
+			long coefficient = randomCoefficient(random);
+			int decExponent = random.nextInt(841) - 420;
+			assertMatchesStepByStep(coefficient, decExponent, randomDouble(random));
+		}
+	}
+	
+	@Test
+	public void nearlyEqualValuesMatchStepByStep() {
+		Random random = new Random(5);
+		for (int i = 0; i < CASES; i++) {
+			long coefficient = randomCoefficient(random);
+			int decExponent = random.nextInt(680) - 340;
+			double nearest = toBigDecimal(coefficient, decExponent).doubleValue();
+			if (nearest == 0 || Double.isInfinite(nearest)) {
+				continue;
+			}
+			assertMatchesStepByStep(coefficient, decExponent, nearest);
+			assertMatchesStepByStep(coefficient, decExponent, Math.nextUp(nearest));
+			if (Math.nextDown(nearest) > 0) {
+				// Zero is handled before either comparison is reached.
+				assertMatchesStepByStep(coefficient, decExponent, Math.nextDown(nearest));
+			}
+		}
+	}
+	
+	// The step-by-step comparison rounds the decimal down at every step, so where it is inexact, a
+	// double at or just below the true value compares as greater than the rounded value. That is
+	// the only way the two may differ, and only by the rounding error of the steps taken.
+	private static void assertMatchesStepByStep(long coefficient, int decExponent, double comparison) {
+		int exact = BinaryDecimal.compareExact(coefficient, decExponent, comparison);
+		int stepByStep = BinaryDecimal.compareApproximate(coefficient, 0, decExponent, comparison);
+		if (exact == stepByStep) {
+			return;
+		}
+		
+		String message = coefficient + "E" + decExponent + " compared to " + comparison;
+		assertEquals(-1, stepByStep, message);
+		BigDecimal value = toBigDecimal(coefficient, decExponent);
+		double error = value.subtract(new BigDecimal(comparison)).divide(value, MathContext.DECIMAL64).doubleValue();
+		assertTrue(error >= 0 && error < Math.scalb((double)Math.abs(decExponent) + 1, -59), message);
+	}
+	
+	private static void assertMatchesBigDecimal(long coefficient, int decExponent, double comparison) {
+		int expected = Integer.signum(toBigDecimal(coefficient, decExponent).compareTo(new BigDecimal(comparison)));
+		assertEquals(expected, BinaryDecimal.compare(coefficient, 0, decExponent, comparison),
+				() -> coefficient + "E" + decExponent + " compared to " + comparison);
+	}
+	
+	private static BigDecimal toBigDecimal(long coefficient, int decExponent) {
+		return new BigDecimal(BigInteger.valueOf(coefficient), -decExponent);
+	}
+	
+	// Returns a positive coefficient with a random number of bits, so that short and long
+	// coefficients are equally likely.
+	private static long randomCoefficient(Random random) {
+		int bits = 1 + random.nextInt(63);
+		return 1 + (random.nextLong() >>> (64 - bits));
+	}
+	
+	// Returns a positive double with a random bit pattern, including subnormal numbers.
+	private static double randomDouble(Random random) {
+		double value;
+		do {
+			value = Double.longBitsToDouble(random.nextLong() >>> 1);
+		} while (value == 0 || !Double.isFinite(value));
+		return value;
+	}
+	
+	private static long pow5(int k) {
+		long result = 1;
+		for (int i = 0; i < k; i++) {
+			result *= 5;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,56 @@
+package net.patowen.interactiveplot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the labels reused by {@link TickLabelCache} as the plot is moved are the same, and in
+ * the same order, as the labels created for the whole range at once.
+ * @author Patrick Owen
+ */
+public class TickLabelCacheTest {
+	@Test
+	public void movedRangeMatchesNewLabels() {
+		Random random = new Random(1);
+		AxisScale axisScale = new LinearAxisScale();
+		TickLabelCache cache = new TickLabelCache();
+		double min = 0, width = 10, interval = 0.5;
+		for (int i = 0; i < 10000; i++) {
+			min += (random.nextDouble() - 0.5) * width;
+			assertMatches(axisScale, cache, min, min + width, interval);
+		}
+	}
+	
+	@Test
+	public void decimalEdgesMatchNewLabels() {
+		// The double 0.1 is slightly above a tenth, so the label at a tenth is out of view when
+		// either edge is there, even though its double is at the edge.
+		AxisScale axisScale = new LinearAxisScale();
+		TickLabelCache cache = new TickLabelCache();
+		assertMatches(axisScale, cache, 0, 1, 0.1);
+		assertMatches(axisScale, cache, 0.1, 1.1, 0.1);
+		assertMatches(axisScale, cache, -0.9, 0.1, 0.1);
+		assertMatches(axisScale, cache, 0.3, 1.3, 0.1);
+		assertMatches(axisScale, cache, -0.7, 0.3, 0.1);
+	}
+	
+	private static void assertMatches(AxisScale axisScale, TickLabelCache cache, double linearMin,
+			double linearMax, double minLinearInterval) {
+		List<String> expected = getTexts(axisScale.getLabels(linearMin, linearMax, minLinearInterval));
+		List<String> actual = getTexts(cache.getLabels(axisScale, linearMin, linearMax, minLinearInterval));
+		assertEquals(expected, actual, "labels in [" + linearMin + ", " + linearMax + "]");
+	}
+	
+	private static List<String> getTexts(TickLabelList labels) {
+		List<String> texts = new ArrayList<>();
+		for (TickLabel label : labels.getLabels()) {
+			texts.add(label.getText());
+		}
+		return texts;
+	}
+}
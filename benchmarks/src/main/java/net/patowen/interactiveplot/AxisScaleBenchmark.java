@@ -0,0 +1,73 @@
+package net.patowen.interactiveplot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AxisScale#getLabels} for an axis 800 pixels long with labels at least 100 pixels
+ * apart, at several zoom levels. The zoom is the base-10 logarithm of the range shown, which is in
+ * real coordinates for a linear axis and in decades for a log axis. Each axis is centered away
+ * from zero, so that deep zoom levels label long decimals.
+ * @author Patrick Owen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AxisScaleBenchmark {
+	private static final double LABEL_SPACING = 100.0 / 800;
+	
+	@Benchmark
+	public TickLabelList linearLabels(LinearAxis axis) {
+		return axis.scale.getLabels(axis.min, axis.max, (axis.max - axis.min) * LABEL_SPACING);
+	}
+	
+	@Benchmark
+	public TickLabelList logLabels(LogAxis axis) {
+		return axis.scale.getLabels(axis.min, axis.max, (axis.max - axis.min) * LABEL_SPACING);
+	}
+	
+	@State(Scope.Thread)
+	public static class LinearAxis {
+		@Param({"-9", "-3", "0", "3"})
+		public int zoom;
+		
+		private final LinearAxisScale scale = new LinearAxisScale();
+		private double min, max;
+		
+		@Setup
+		public void setUp() {
+			double range = Math.pow(10, zoom);
+			min = 1234.5678 - range / 2;
+			max = 1234.5678 + range / 2;
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class LogAxis {
+		@Param({"-9", "-3", "0", "2"})
+		public int zoom;
+		
+		private final LogAxisScale scale = new LogAxisScale();
+		private double min, max;
+		
+		@Setup
+		public void setUp() {
+			double range = Math.pow(10, zoom);
+			min = 0.3 - range / 2;
+			max = 0.3 + range / 2;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package net.patowen.interactiveplot;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks with the usual JMH command line, always adding the GC profiler so that every
+ * result also reports how much each operation allocates. For example,
+ * {@code java -jar benchmarks/target/benchmarks.jar PlotScale} runs the benchmarks of
+ * {@link PlotScaleBenchmark}, and {@code -h} lists the other options.
+ * @author Patrick Owen
+ */
+public final class BenchmarkRunner {
+	private BenchmarkRunner() {
+	}
+	
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+		
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine);
+		if (!hasGcProfiler(commandLine)) {
+			builder.addProfiler(GCProfiler.class);
+		}
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+	
+	private static boolean hasGcProfiler(Options options) {
+		for (ProfilerConfig profiler : options.getProfilers()) {
+			if (profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
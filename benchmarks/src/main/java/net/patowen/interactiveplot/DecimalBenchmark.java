@@ -0,0 +1,104 @@
+package net.patowen.interactiveplot;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the arithmetic, comparison and formatting of {@link Decimal} and {@link BinaryDecimal}
+ * that labeling an axis relies on. Each operation takes the next of a fixed set of random operands,
+ * whose magnitudes span many orders, so that branches depending on the operands cannot be
+ * predicted perfectly.
+ * @author Patrick Owen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecimalBenchmark {
+	// The number of operands, which is a power of two so that the index wraps around with a mask
+	private static final int COUNT = 1024;
+	
+	private static final int MAX_PREFERRED_DIGITS = 5;
+	
+	private final Decimal[] decimals = new Decimal[COUNT];
+	private final double[] doubles = new double[COUNT];
+	private final char[] buffer = new char[Decimal.getMaxLength(MAX_PREFERRED_DIGITS)];
+	private int index;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		for (int i = 0; i < COUNT; i++) {
+			decimals[i] = new Decimal(random.nextInt(2000000) - 1000000, random.nextInt(25) - 12);
+			doubles[i] = Math.pow(10, random.nextDouble() * 24 - 12);
+		}
+	}
+	
+	private int next() {
+		index = (index + 1) & (COUNT - 1);
+		return index;
+	}
+	
+	@Benchmark
+	public Decimal plus() {
+		int i = next();
+		return decimals[i].plus(decimals[(i + 1) & (COUNT - 1)]);
+	}
+	
+	@Benchmark
+	public Decimal times() {
+		int i = next();
+		return decimals[i].times(decimals[(i + 1) & (COUNT - 1)]);
+	}
+	
+	@Benchmark
+	public int compare() {
+		int i = next();
+		return decimals[i].compare(doubles[i]);
+	}
+	
+	@Benchmark
+	public Decimal fromDouble() {
+		return Decimal.fromDoubleRoundUp(doubles[next()], 3);
+	}
+	
+	@Benchmark
+	public Decimal nextIncrement() {
+		return Decimal.nextIncrement(doubles[next()]);
+	}
+	
+	@Benchmark
+	public int format() {
+		Decimal decimal = decimals[next()];
+		return Decimal.format(decimal.getCoefficient(), decimal.getExponent(), MAX_PREFERRED_DIGITS, buffer);
+	}
+	
+	@Benchmark
+	public int binaryCompare() {
+		int i = next();
+		return BinaryDecimal.compare(Math.abs(decimals[i].getCoefficient()), 0, decimals[i].getExponent(), doubles[i]);
+	}
+	
+	@Benchmark
+	public int binaryFromDouble() {
+		// Scaling a value down by ten and comparing it to the original covers both directions of
+		// conversion between binary and decimal exponents.
+		int i = next();
+		BinaryDecimal value = BinaryDecimal.fromDouble(doubles[i]);
+		value.incrementDecExponent();
+		return value.compare(doubles[i]);
+	}
+}
@@ -0,0 +1,107 @@
+package net.patowen.interactiveplot;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PlotDataFunction#drawData} into an offscreen image the size of a typical plot,
+ * with the function sampled while painting. Each benchmark changes the plot in a different way
+ * before drawing, so that none, some or all of the columns need to be sampled.
+ * @author Patrick Owen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PlotDataFunctionBenchmark {
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+	
+	@Param({"false", "true"})
+	public boolean adaptive;
+	
+	@Param({"false", "true"})
+	public boolean antialiased;
+	
+	private Graphics2D g;
+	private PlotScale plotScale;
+	private PlotFunction function;
+	private PlotDataFunction plotData;
+	
+	// The distance each pan moves the plot, which changes sign every time so that the plot stays
+	// in place
+	private double panDistance;
+	
+	@Setup
+	public void setUp() {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+		g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				antialiased ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+		
+		plotScale = PlotScale.getBuilder()
+				.setBounds(new PlotBounds(-10, 10, 1.5, -1.5))
+				.setSize(WIDTH, HEIGHT)
+				.setConstraints(new PlotConstraints())
+				.setAxisScales(new LinearAxisScale(), new LinearAxisScale())
+				.build();
+		panDistance = plotScale.getLinearWidth(4);
+		
+		// Oscillates faster further out, so that adaptive sampling has work to do at the edges
+		function = x -> Math.sin(x * x);
+		plotData = new PlotDataFunction();
+		plotData.setAdaptiveSampling(adaptive);
+		plotData.setFunction(function);
+		plotData.drawData(g, plotScale);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+	
+	/**
+	 * Draws the same view again, which reuses every sample.
+	 */
+	@Benchmark
+	public void redraw() {
+		plotData.drawData(g, plotScale);
+	}
+	
+	/**
+	 * Pans the plot by a few pixels before drawing, so that only the columns that come into view
+	 * are sampled.
+	 */
+	@Benchmark
+	public void pan() {
+		panDistance = -panDistance;
+		plotScale.translateX(panDistance);
+		plotData.drawData(g, plotScale);
+	}
+	
+	/**
+	 * Sets the function again before drawing, so that every column is sampled.
+	 */
+	@Benchmark
+	public void resample() {
+		plotData.setFunction(function);
+		plotData.drawData(g, plotScale);
+	}
+}
@@ -0,0 +1,111 @@
+package net.patowen.interactiveplot;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the conversions of {@link PlotScale} between real, screen and pixel coordinates, one
+ * coordinate at a time and in bulk. Every benchmark converts the same number of coordinates, and
+ * the time reported is per coordinate.
+ * @author Patrick Owen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlotScaleBenchmark {
+	private static final int COUNT = 4096;
+	
+	@Param({"linear", "log"})
+	public String axisScale;
+	
+	private PlotScale plotScale;
+	private double[] realX;
+	private double[] screenX;
+	private double[] result;
+	private int[] pixelX;
+	
+	@Setup
+	public void setUp() {
+		boolean log = axisScale.equals("log");
+		plotScale = PlotScale.getBuilder()
+				.setBounds(log ? new PlotBounds(0.01, 1000, 1, 0) : new PlotBounds(-10, 10, 1, 0))
+				.setSize(800, 600)
+				.setConstraints(new PlotConstraints())
+				.setAxisScales(log ? new LogAxisScale() : new LinearAxisScale(), new LinearAxisScale())
+				.build();
+		
+		Random random = new Random(1);
+		realX = new double[COUNT];
+		screenX = new double[COUNT];
+		result = new double[COUNT];
+		pixelX = new int[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			screenX[i] = random.nextDouble() * 800;
+			realX[i] = plotScale.getRealX(screenX[i]);
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void getScreenX(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(plotScale.getScreenX(realX[i]));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public double[] getScreenXBulk() {
+		plotScale.getScreenX(realX, result, 0, COUNT);
+		return result;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void getPixelX(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(plotScale.getPixelX(realX[i]));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int[] getPixelXBulk() {
+		// The bulk conversion overwrites its input with screen coordinates.
+		System.arraycopy(realX, 0, result, 0, COUNT);
+		plotScale.getPixelX(result, pixelX, 0, COUNT);
+		return pixelX;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void getRealX(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(plotScale.getRealX(screenX[i]));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public double[] getRealXBulk() {
+		plotScale.getRealX(screenX, result, 0, COUNT);
+		return result;
+	}
+}